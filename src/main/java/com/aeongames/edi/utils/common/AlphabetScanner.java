@@ -0,0 +1,277 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Objects;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * checks whenever text is pure ASCII or only has Base64 characters (the
+ * alphabet {@link CharsetCompatibilityChecker} defines: the standard and URL
+ * safe characters plus the padding). the data is checked 8 bytes at the time
+ * (SWAR) and the result is the offset of the first invalid character. thus
+ * validating large payloads costs a fraction of decoding them.
+ * <br>
+ * the placement of the padding is not checked. that is for the decoder.
+ *
+ * @author Eduardo Vindas
+ */
+public final class AlphabetScanner {
+
+    /**
+     * the high bit of each byte.
+     */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    /**
+     * 0x01 on each byte. multiplied by a byte it repeats it on all the bytes.
+     */
+    private static final long ONES = 0x0101010101010101L;
+    /**
+     * the Base64 characters (by ASCII value).
+     */
+    private static final boolean[] BASE64 = new boolean[0x80];
+
+    static {
+        for (char c = 0; c < BASE64.length; c++) {
+            BASE64[c] = CharsetCompatibilityChecker.isBase64Character(c);
+            //the word check must agree with the alphabet.
+            assert ((invalidBase64(c) & 0x80) == 0) == BASE64[c] : "the Base64 word check disagrees on " + (int) c;
+        }
+    }
+
+    private AlphabetScanner() {
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="ASCII">
+    /**
+     * finds the first byte that is not ASCII. (has its high bit set)
+     *
+     * @param data the data to check
+     * @param off the index of the first byte to check
+     * @param len the amount of bytes to check
+     * @return the index of the first non ASCII byte. or -1 if all are ASCII
+     */
+    public static int firstNonAscii(byte[] data, int off, int len) {
+        Objects.checkFromIndexSize(off, len, data.length);
+        final int end = off + len;
+        int index = off;
+        for (; index + Long.BYTES <= end; index += Long.BYTES) {
+            var invalid = (long) BulkCodec.LONG_ARRAY.get(data, index) & HIGH_BITS;
+            if (invalid != 0) {
+                return index + firstByte(invalid);
+            }
+        }
+        for (; index < end; index++) {
+            if (data[index] < 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * finds the first byte that is not ASCII between the buffer position and
+     * limit. the position is not changed.
+     *
+     * @param data the data to check
+     * @return the (absolute) index of the first non ASCII byte. or -1 if all
+     * are ASCII
+     */
+    public static int firstNonAscii(ByteBuffer data) {
+        if (data.hasArray()) {
+            var found = firstNonAscii(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            return found < 0 ? -1 : found - data.arrayOffset();
+        }
+        final int end = data.limit();
+        int index = data.position();
+        for (; index + Long.BYTES <= end; index += Long.BYTES) {
+            var invalid = (long) BulkCodec.LONG_BUFFER.get(data, index) & HIGH_BITS;
+            if (invalid != 0) {
+                return index + firstByte(invalid);
+            }
+        }
+        for (; index < end; index++) {
+            if (data.get(index) < 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * finds the first char that is not ASCII between the buffer position and
+     * limit. the position is not changed.
+     *
+     * @param data the data to check
+     * @return the (absolute) index of the first non ASCII char. or -1 if all
+     * are ASCII
+     */
+    public static int firstNonAscii(CharBuffer data) {
+        final int end = data.limit();
+        int index = data.position();
+        if (data.hasArray()) {
+            final char[] chars = data.array();
+            final int base = data.arrayOffset();
+            //or the chars in blocks. the loop is simple enough for the JIT to vectorize.
+            for (; index + Long.BYTES <= end; index += Long.BYTES) {
+                int any = 0;
+                for (int i = base + index, last = i + Long.BYTES; i < last; i++) {
+                    any |= chars[i];
+                }
+                if (any >= 0x80) {
+                    break;
+                }
+            }
+            for (; index < end; index++) {
+                if (chars[base + index] >= 0x80) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+        for (; index < end; index++) {
+            if (data.get(index) >= 0x80) {
+                return index;
+            }
+        }
+        return -1;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Base64">
+    /**
+     * finds the first byte that is not a Base64 character.
+     *
+     * @param data the data to check
+     * @param off the index of the first byte to check
+     * @param len the amount of bytes to check
+     * @return the index of the first invalid byte. or -1 if all are Base64
+     */
+    public static int firstNonBase64(byte[] data, int off, int len) {
+        Objects.checkFromIndexSize(off, len, data.length);
+        final int end = off + len;
+        int index = off;
+        for (; index + Long.BYTES <= end; index += Long.BYTES) {
+            var invalid = invalidBase64((long) BulkCodec.LONG_ARRAY.get(data, index));
+            if (invalid != 0) {
+                return index + firstByte(invalid);
+            }
+        }
+        for (; index < end; index++) {
+            if (!isBase64(data[index])) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * finds the first byte that is not a Base64 character between the buffer
+     * position and limit. the position is not changed.
+     *
+     * @param data the data to check
+     * @return the (absolute) index of the first invalid byte. or -1 if all are
+     * Base64
+     */
+    public static int firstNonBase64(ByteBuffer data) {
+        if (data.hasArray()) {
+            var found = firstNonBase64(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            return found < 0 ? -1 : found - data.arrayOffset();
+        }
+        final int end = data.limit();
+        int index = data.position();
+        for (; index + Long.BYTES <= end; index += Long.BYTES) {
+            var invalid = invalidBase64((long) BulkCodec.LONG_BUFFER.get(data, index));
+            if (invalid != 0) {
+                return index + firstByte(invalid);
+            }
+        }
+        for (; index < end; index++) {
+            if (!isBase64(data.get(index))) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * finds the first char that is not a Base64 character between the buffer
+     * position and limit. the position is not changed.
+     *
+     * @param data the data to check
+     * @return the (absolute) index of the first invalid char. or -1 if all
+     * are Base64
+     */
+    public static int firstNonBase64(CharBuffer data) {
+        final int end = data.limit();
+        if (data.hasArray()) {
+            final char[] chars = data.array();
+            final int base = data.arrayOffset();
+            for (int index = data.position(); index < end; index++) {
+                var c = chars[base + index];
+                if (c >= 0x80 || !BASE64[c]) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+        for (int index = data.position(); index < end; index++) {
+            var c = data.get(index);
+            if (c >= 0x80 || !BASE64[c]) {
+                return index;
+            }
+        }
+        return -1;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Word checks">
+    private static boolean isBase64(byte value) {
+        return value >= 0 && BASE64[value];
+    }
+
+    /**
+     * @param mask the flags of 8 bytes read as big endian
+     * @return the offset of the first byte flagged on the mask (its high bit
+     * set)
+     */
+    private static int firstByte(long mask) {
+        return Long.numberOfLeadingZeros(mask) >>> 3;
+    }
+
+    /**
+     * flags the bytes of the word that are not Base64 characters. the bytes
+     * are classified by range. as the 7 low bits of each byte plus a constant
+     * below 0x80 never carries into the next byte the high bit of each sum
+     * tells if the byte is above (or below) the constant.
+     *
+     * @param word 8 bytes
+     * @return the high bit set on each invalid byte.
+     */
+    private static long invalidBase64(long word) {
+        final long low = word & ~HIGH_BITS;
+        final long valid = range(low, 'A', 'Z') | range(low, 'a', 'z') | range(low, '0', '9')
+                | range(low, '+', '+') | range(low, '-', '-') | range(low, '/', '/')
+                | range(low, '=', '=') | range(low, '_', '_');
+        return (~valid | word) & HIGH_BITS;
+    }
+
+    /**
+     * @return the high bit set on each byte between {@code from} and
+     * {@code to} (inclusive). the bytes must be below 0x80
+     */
+    private static long range(long low, int from, int to) {
+        return (low + ONES * (0x80 - from)) & ~(low + ONES * (0x7F - to)) & HIGH_BITS;
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,502 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.DigestInputStream;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * decodes Base64 text encoded on any ASCII congruent charset (UTF-8, UTF-16,
+ * UTF-32) and digest the decoded bytes on a single pass. each chunk provided
+ * is narrowed (see {@link SkipByteChannel}) into a small cache resident block,
+ * decoded with a lookup table and fed into
+ * {@link MessageDigest#update(ByteBuffer)}. no stream layers are involved and
+ * the working buffers are borrowed from the
+ * {@link BufferPool#shared() shared pool}.
+ * <br>
+ * the result is the same as reading
+ * {@link SkipInputStream#getWrappedStream(InputStream, Charset, MessageDigest)}
+ * to the end. that is: the basic Base64 alphabet
+ * ({@link java.util.Base64#getDecoder()}) with optional padding. anything
+ * after the padding is ignored. a illegal character or a invalid ending fails
+ * with a {@code IOException}.
+ * <br>
+ * the chunks can split code units and Base64 quanta at any point. the partial
+ * data is carried to the next chunk. a engine is not thread safe.
+ *
+ * @author Eduardo Vindas
+ */
+public final class Base64DigestEngine implements AutoCloseable {
+
+    /**
+     * receives each block of decoded bytes. the buffer is only valid during
+     * the call.
+     */
+    @FunctionalInterface
+    static interface Sink {
+
+        void accept(ByteBuffer decoded) throws IOException;
+    }
+
+    /**
+     * the size of the narrowed block. small enough to stay on the L1 cache.
+     */
+    private static final int BLOCK_SIZE = 4 * 1024;
+    /**
+     * the size of the chunks read by the static helpers.
+     */
+    private static final int READ_SIZE = 64 * 1024;
+    private static final int INVALID = -1, PAD = -2;
+    private static final int NORMAL = 0, NEED_PAD = 1, DONE = 2;
+    /**
+     * the decoding table. -1 for invalid characters. -2 for the padding.
+     */
+    private static final int[] DECODE = new int[256];
+
+    static {
+        Arrays.fill(DECODE, INVALID);
+        var alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = i;
+        }
+        DECODE['='] = PAD;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    private final int Stride;
+    private final int Offset;
+    /**
+     * the digest to update. null if using a sink.
+     */
+    private final MessageDigest Digest;
+    private final Sink Output;
+    private final byte[] Narrowed;
+    private final ByteBuffer NarrowedBuffer;
+    private final byte[] Decoded;
+    private final ByteBuffer DecodedBuffer;
+    /**
+     * the bytes of a incomplete code unit.
+     */
+    private final byte[] Carry;
+    private int carried = 0;
+    /**
+     * the bits of a incomplete quantum and the amount of characters on it.
+     */
+    private int bits = 0, chars = 0;
+    private int state = NORMAL;
+    private boolean closed = false;
+    //</editor-fold>
+
+    /**
+     * creates a engine for Base64 text encoded with the provided charset.
+     *
+     * @param charset the encoding of the text
+     * @param digest the digest to update with the decoded bytes.
+     */
+    public Base64DigestEngine(Charset charset, MessageDigest digest) {
+        this(SkipByteChannel.strideOf(charset), SkipByteChannel.isBigEndian(charset),
+                Objects.requireNonNull(digest, "the digest cannot be null"), null);
+    }
+
+    /**
+     * creates a engine for Base64 text with the provided code unit layout.
+     *
+     * @param stride the bytes per code unit
+     * @param bigEndian whenever the significant byte is the last of each unit
+     * @param digest the digest to update with the decoded bytes.
+     */
+    public Base64DigestEngine(int stride, boolean bigEndian, MessageDigest digest) {
+        this(stride, bigEndian, Objects.requireNonNull(digest, "the digest cannot be null"), null);
+    }
+
+    /**
+     * creates a engine that pushes the decoded bytes into a sink rather than
+     * a digest.
+     */
+    Base64DigestEngine(int stride, boolean bigEndian, Sink sink) {
+        this(stride, bigEndian, null, Objects.requireNonNull(sink, "the sink cannot be null"));
+    }
+
+    private Base64DigestEngine(int stride, boolean bigEndian, MessageDigest digest, Sink sink) {
+        if (stride <= 0) {
+            throw new IllegalArgumentException("the stride must be positive");
+        }
+        Stride = stride;
+        Offset = bigEndian ? stride - 1 : 0;
+        Digest = digest;
+        Output = sink;
+        var pool = BufferPool.shared();
+        Narrowed = pool.acquireArray(BLOCK_SIZE);
+        NarrowedBuffer = ByteBuffer.wrap(Narrowed);
+        //a block decodes into less bytes. plus the carried quantum.
+        Decoded = pool.acquireArray(Narrowed.length + 3);
+        DecodedBuffer = ByteBuffer.wrap(Decoded);
+        Carry = new byte[stride];
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Static Helpers">
+    /**
+     * reads the stream to its end and digest the decoded Base64 data.
+     *
+     * @param in the stream with the Base64 text. not closed.
+     * @param charset the encoding of the text
+     * @param digest the digest to use. it is reset by this call.
+     * @return the digest of the decoded data.
+     * @throws IOException if the stream fails or the text is not valid
+     * Base64
+     */
+    public static byte[] digest(InputStream in, Charset charset, MessageDigest digest) throws IOException {
+        var pool = BufferPool.shared();
+        var raw = pool.acquireArray(READ_SIZE);
+        digest.reset();
+        try (var engine = new Base64DigestEngine(charset, digest)) {
+            var chunk = ByteBuffer.wrap(raw);
+            int read;
+            while ((read = in.read(raw)) >= 0) {
+                engine.update(chunk.clear().limit(read));
+            }
+            return engine.finish();
+        } finally {
+            pool.release(raw);
+        }
+    }
+
+    /**
+     * reads the channel to its end and digest the decoded Base64 data.
+     *
+     * @param in the channel with the Base64 text. not closed.
+     * @param charset the encoding of the text
+     * @param digest the digest to use. it is reset by this call.
+     * @return the digest of the decoded data.
+     * @throws IOException if the channel fails or the text is not valid
+     * Base64
+     */
+    public static byte[] digest(ReadableByteChannel in, Charset charset, MessageDigest digest) throws IOException {
+        var pool = BufferPool.shared();
+        var chunk = pool.acquire(READ_SIZE, true);
+        digest.reset();
+        try (var engine = new Base64DigestEngine(charset, digest)) {
+            while (in.read(chunk) >= 0) {
+                engine.update(chunk.flip());
+                chunk.clear();
+            }
+            return engine.finish();
+        } finally {
+            pool.release(chunk);
+        }
+    }
+
+    /**
+     * wraps the stream so the data read is the decoded Base64 data and it is
+     * digested as it is read. the same as stacking {@code DigestInputStream},
+     * a Base64 decoder and a {@code SkipInputStream} but on a single layer.
+     */
+    static DigestInputStream wrap(InputStream in, Charset charset, MessageDigest digest) {
+        return new DecodingDigestStream(in, charset, digest);
+    }
+    //</editor-fold>
+
+    /**
+     * decodes the chunk and digest the decoded bytes. all the remaining bytes
+     * of the chunk are consumed.
+     *
+     * @param encoded the encoded text.
+     * @throws IOException if the text is not valid Base64
+     */
+    public void update(ByteBuffer encoded) throws IOException {
+        ensureOpen();
+        if (state == DONE) {
+            encoded.position(encoded.limit());
+            return;
+        }
+        if (carried > 0) {
+            while (carried < Stride && encoded.hasRemaining()) {
+                Carry[carried++] = encoded.get();
+            }
+            if (carried < Stride) {
+                return;
+            }
+            carried = 0;
+            Narrowed[0] = Carry[Offset];
+            decodeBlock(Narrowed, 0, 1);
+        }
+        if (Stride == 1 && encoded.hasArray()) {
+            //nothing to narrow. decode straight from the array.
+            var array = encoded.array();
+            var start = encoded.arrayOffset() + encoded.position();
+            var end = start + encoded.remaining();
+            for (int index = start; index < end && state != DONE; index += Narrowed.length) {
+                decodeBlock(array, index, Math.min(end, index + Narrowed.length));
+            }
+            encoded.position(encoded.limit());
+            return;
+        }
+        while (encoded.remaining() >= Stride && state != DONE) {
+            NarrowedBuffer.clear();
+            var units = SkipByteChannel.gather(encoded, NarrowedBuffer, Stride, Offset);
+            decodeBlock(Narrowed, 0, units);
+        }
+        if (state == DONE) {
+            encoded.position(encoded.limit());
+        }
+        while (encoded.hasRemaining()) {
+            Carry[carried++] = encoded.get();
+        }
+    }
+
+    /**
+     * completes the decoding. outputs the last incomplete quantum (if any) and
+     * resets the engine so it can be reused.
+     *
+     * @return the digest of the data decoded. or null if the engine uses a
+     * sink.
+     * @throws IOException if the text ends with a invalid sequence.
+     */
+    public byte[] finish() throws IOException {
+        ensureOpen();
+        try {
+            if (state == NEED_PAD) {
+                throw new IOException("Illegal base64 ending sequence");
+            }
+            if (state == NORMAL && chars == 1) {
+                throw new IOException("Base64 stream has one un-decoded dangling byte.");
+            }
+            int dp = 0;
+            if (state == NORMAL && chars == 2) {
+                Decoded[dp++] = (byte) (bits >> 4);
+            } else if (state == NORMAL && chars == 3) {
+                Decoded[dp++] = (byte) (bits >> 10);
+                Decoded[dp++] = (byte) (bits >> 2);
+            }
+            flush(dp);
+            return Digest != null ? Digest.digest() : null;
+        } finally {
+            carried = bits = chars = 0;
+            state = NORMAL;
+        }
+    }
+
+    /**
+     * @return true if the padding was reached thus any further data is
+     * ignored.
+     */
+    public boolean isComplete() {
+        return state == DONE;
+    }
+
+    /**
+     * returns the working buffers to the pool.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            BufferPool.shared().release(Narrowed);
+            BufferPool.shared().release(Decoded);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("the engine is closed");
+        }
+    }
+
+    private void decodeBlock(byte[] src, int sp, int send) throws IOException {
+        flush(decode(src, sp, send));
+    }
+
+    private void flush(int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        DecodedBuffer.clear().limit(length);
+        if (Digest != null) {
+            Digest.update(DecodedBuffer);
+        } else {
+            Output.accept(DecodedBuffer);
+        }
+    }
+
+    /**
+     * decodes the characters into the decoded block.
+     *
+     * @return the amount of bytes decoded.
+     */
+    private int decode(byte[] src, int sp, int send) throws IOException {
+        final byte[] dst = Decoded;
+        int dp = 0;
+        while (sp < send && state != DONE) {
+            if (state == NEED_PAD) {
+                if (src[sp++] != '=') {
+                    throw new IOException("Illegal base64 ending sequence");
+                }
+                state = DONE;
+                break;
+            }
+            if (chars == 0) {
+                //the fast path. whole quanta with no special characters.
+                while (send - sp >= 4) {
+                    int value = DECODE[src[sp] & 0xFF] << 18 | DECODE[src[sp + 1] & 0xFF] << 12
+                            | DECODE[src[sp + 2] & 0xFF] << 6 | DECODE[src[sp + 3] & 0xFF];
+                    if (value < 0) {
+                        break;
+                    }
+                    dst[dp++] = (byte) (value >> 16);
+                    dst[dp++] = (byte) (value >> 8);
+                    dst[dp++] = (byte) value;
+                    sp += 4;
+                }
+                if (sp >= send) {
+                    break;
+                }
+            }
+            var character = src[sp++] & 0xFF;
+            var value = DECODE[character];
+            if (value >= 0) {
+                bits = bits << 6 | value;
+                if (++chars == 4) {
+                    dst[dp++] = (byte) (bits >> 16);
+                    dst[dp++] = (byte) (bits >> 8);
+                    dst[dp++] = (byte) bits;
+                    bits = chars = 0;
+                }
+            } else if (value == PAD) {
+                if (chars < 2) {
+                    throw new IOException("Illegal base64 ending sequence");
+                }
+                if (chars == 2) {
+                    dst[dp++] = (byte) (bits >> 4);
+                    state = NEED_PAD;
+                } else {
+                    dst[dp++] = (byte) (bits >> 10);
+                    dst[dp++] = (byte) (bits >> 2);
+                    state = DONE;
+                }
+                bits = chars = 0;
+            } else {
+                throw new IOException("Illegal base64 character " + Integer.toString(character, 16));
+            }
+        }
+        return dp;
+    }
+
+    /**
+     * a {@code DigestInputStream} that narrows, decodes and digests on a
+     * single layer using a engine.
+     */
+    private static final class DecodingDigestStream extends DigestInputStream {
+
+        private final Base64DigestEngine Engine;
+        private final byte[] Raw;
+        private final int RawSize;
+        /**
+         * the decoded bytes not yet read. on "read" mode.
+         */
+        private final ByteBuffer Pending;
+        private final byte[] single = new byte[1];
+        private boolean digesting = true;
+        private boolean eof = false;
+        private boolean closed = false;
+
+        private DecodingDigestStream(InputStream in, Charset charset, MessageDigest digest) {
+            super(Objects.requireNonNull(in, "the stream cannot be null"), digest);
+            var stride = SkipByteChannel.strideOf(charset);
+            var pool = BufferPool.shared();
+            Pending = ByteBuffer.wrap(pool.acquireArray(READ_SIZE)).flip();
+            Raw = pool.acquireArray(READ_SIZE);
+            //the raw text must decode into the pending buffer. (plus a carried quantum)
+            RawSize = Math.min(Raw.length, (Pending.capacity() / 3 - 1) * 4) / stride * stride;
+            Engine = new Base64DigestEngine(stride, SkipByteChannel.isBigEndian(charset), this::accept);
+        }
+
+        private void accept(ByteBuffer decoded) {
+            if (digesting && getMessageDigest() != null) {
+                getMessageDigest().update(decoded.duplicate());
+            }
+            Pending.put(decoded);
+        }
+
+        @Override
+        public int read() throws IOException {
+            var read = read(single, 0, 1);
+            return read <= 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (!Pending.hasRemaining()) {
+                if (eof) {
+                    return -1;
+                }
+                Pending.clear();
+                try {
+                    var read = in.read(Raw, 0, RawSize);
+                    if (read < 0) {
+                        eof = true;
+                        Engine.finish();
+                    } else {
+                        Engine.update(ByteBuffer.wrap(Raw, 0, read));
+                        eof = Engine.isComplete();
+                    }
+                } finally {
+                    Pending.flip();
+                }
+            }
+            var count = Math.min(len, Pending.remaining());
+            Pending.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Pending.remaining();
+        }
+
+        @Override
+        public void on(boolean on) {
+            digesting = on;
+            super.on(on);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Engine.close();
+            BufferPool.shared().release(Raw);
+            BufferPool.shared().release(Pending.array());
+            in.close();
+        }
+    }
+}
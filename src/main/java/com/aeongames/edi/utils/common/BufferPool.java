@@ -0,0 +1,382 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Map;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * a pool of reusable buffers. the buffers are grouped into power of two size
+ * classes. a request is served with the smallest class that fits it. thus the
+ * buffer returned can be larger than requested.
+ * <br>
+ * there are separated buckets for {@code byte[]}, heap {@code ByteBuffer} and
+ * direct {@code ByteBuffer}. platform threads keep a small thread local cache
+ * (one buffer per kind and small size class) that is checked before the
+ * shared buckets. virtual threads skip that cache and go straight to the
+ * shared buckets. otherwise each of the (possibly millions of) virtual threads
+ * would retain its own buffers.
+ * <br>
+ * every buffer acquired <strong>must</strong> be released once and not be used
+ * after. a buffer that is not released is not a memory leak as such (the GC
+ * collects it) but it defeats the pool. when the application runs in debug
+ * mode the pool records where each buffer was acquired. see
+ * {@link #reportLeaks()}
+ * <br>
+ * requests larger than the largest pooled class are allocated and dropped on
+ * release.
+ *
+ * @author Eduardo Vindas
+ */
+public final class BufferPool {
+
+    private static final String LOGGERNAME = "CommonUtilsLogger";
+    /**
+     * the smallest size class. 512 bytes.
+     */
+    private static final int MIN_SHIFT = 9;
+    /**
+     * the largest size class cached per thread. 64 KiB.
+     */
+    private static final int THREAD_CACHE_SHIFT = 16;
+    private static final int ARRAY = 0, HEAP = 1, DIRECT = 2, KINDS = 3;
+    /**
+     * the pool shared by the library.
+     */
+    private static final BufferPool SHARED = new BufferPool(16, 1 << 20);
+
+    /**
+     * the statistics of a pool.
+     *
+     * @param hits the requests served from the pool
+     * @param misses the requests that required a allocation
+     * @param releases the buffers returned to the pool
+     * @param drops the buffers released but not retained (bucket full or
+     * unpoolable buffer)
+     * @param outstanding the amount of buffers acquired and not yet released.
+     * only tracked in debug mode. otherwise -1
+     */
+    public static record Stats(long hits, long misses, long releases, long drops, long outstanding) {
+
+        /**
+         * @return the ratio of requests served from the pool. from 0 to 1
+         */
+        public double hitRatio() {
+            var total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    /**
+     * the largest size class of this pool.
+     */
+    private final int MaxShift;
+    /**
+     * the maximum amount of buffers retained per bucket.
+     */
+    private final int MaxPerBucket;
+    /**
+     * the shared buckets. indexed by {@code kind * classes + class}
+     */
+    private final ConcurrentLinkedQueue<Object>[] Buckets;
+    private final AtomicInteger[] BucketSizes;
+    /**
+     * the per (platform) thread caches. same index as the buckets. limited to
+     * the classes up to {@link #THREAD_CACHE_SHIFT}
+     */
+    private final ThreadLocal<Object[]> ThreadCache;
+    /**
+     * the acquire site of the buffers not yet released. null if not in debug
+     * mode.
+     */
+    private final Map<Object, Throwable> Outstanding;
+    private final LongAdder Hits = new LongAdder(),
+            Misses = new LongAdder(),
+            Releases = new LongAdder(),
+            Drops = new LongAdder();
+    //</editor-fold>
+
+    /**
+     * @return the pool shared by the library.
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * creates a new pool.
+     *
+     * @param maxPerBucket the maximum amount of idle buffers to keep per kind
+     * and size class.
+     * @param maxPooledSize the largest buffer size to pool. rounded up to a
+     * power of two.
+     */
+    public BufferPool(int maxPerBucket, int maxPooledSize) {
+        if (maxPerBucket <= 0) {
+            throw new IllegalArgumentException("the bucket size must be positive");
+        }
+        if (maxPooledSize <= 0 || maxPooledSize > 1 << 30) {
+            throw new IllegalArgumentException("invalid maximum pooled size");
+        }
+        MaxPerBucket = maxPerBucket;
+        MaxShift = Math.max(MIN_SHIFT, shiftFor(maxPooledSize));
+        var classes = MaxShift - MIN_SHIFT + 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ConcurrentLinkedQueue<Object>[] buckets = new ConcurrentLinkedQueue[KINDS * classes];
+        Buckets = buckets;
+        BucketSizes = new AtomicInteger[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            Buckets[i] = new ConcurrentLinkedQueue<>();
+            BucketSizes[i] = new AtomicInteger();
+        }
+        ThreadCache = ThreadLocal.withInitial(() -> new Object[Buckets.length]);
+        Outstanding = LoggingHelper.RunningInDebugMode() ? new IdentityHashMap<>() : null;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Acquire">
+    /**
+     * acquires a byte array of at the least {@code minSize} bytes. the content
+     * of the array is undefined.
+     *
+     * @param minSize the minimum size required
+     * @return a array of {@code minSize} bytes or more.
+     */
+    public byte[] acquireArray(int minSize) {
+        var pooled = take(ARRAY, minSize);
+        var array = pooled != null ? (byte[]) pooled : new byte[allocationSize(minSize)];
+        return track(array);
+    }
+
+    /**
+     * acquires a heap or direct buffer of at the least {@code minSize} bytes.
+     * the buffer is cleared (position 0, limit = capacity) and in big endian
+     * order. the content is undefined.
+     *
+     * @param minSize the minimum size required
+     * @param direct whenever a direct buffer is required
+     * @return a buffer with a capacity of {@code minSize} bytes or more.
+     */
+    public ByteBuffer acquire(int minSize, boolean direct) {
+        var kind = direct ? DIRECT : HEAP;
+        var pooled = take(kind, minSize);
+        ByteBuffer buffer;
+        if (pooled != null) {
+            buffer = (ByteBuffer) pooled;
+        } else {
+            var size = allocationSize(minSize);
+            buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        }
+        return track(buffer);
+    }
+
+    /**
+     * takes a idle item from the thread cache or the shared bucket.
+     *
+     * @return the item or null if none is available.
+     */
+    private Object take(int kind, int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("the size cannot be negative");
+        }
+        var shift = Math.max(MIN_SHIFT, shiftFor(minSize));
+        if (shift > MaxShift) {
+            Misses.increment();
+            return null;
+        }
+        var index = bucketIndex(kind, shift);
+        if (shift <= THREAD_CACHE_SHIFT && !Thread.currentThread().isVirtual()) {
+            var cache = ThreadCache.get();
+            var item = cache[index];
+            if (item != null) {
+                cache[index] = null;
+                Hits.increment();
+                return item;
+            }
+        }
+        var item = Buckets[index].poll();
+        if (item != null) {
+            BucketSizes[index].decrementAndGet();
+            Hits.increment();
+        } else {
+            Misses.increment();
+        }
+        return item;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Release">
+    /**
+     * returns a array to the pool. the array must not be used after.
+     *
+     * @param array the array to release. null is ignored.
+     */
+    public void release(byte[] array) {
+        if (array == null) {
+            return;
+        }
+        untrack(array);
+        put(ARRAY, array.length, array);
+    }
+
+    /**
+     * returns a buffer to the pool. the buffer must not be used after.
+     * <strong>only</strong> the buffers acquired from this pool (not a slice or
+     * duplicate of them) may be released. the origin of a direct buffer cannot
+     * be checked. thus a foreign direct buffer (a slice, a caller's own or a
+     * mapped file) with a pooled capacity would be handed out again while
+     * still in use by its owner. read only buffers and heap slices are
+     * detected and dropped.
+     *
+     * @param buffer the buffer to release. null is ignored.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        untrack(buffer);
+        //best effort. a direct slice or a foreign direct buffer cannot be told apart.
+        if (buffer.isReadOnly()
+                || (!buffer.isDirect() && (buffer.arrayOffset() != 0 || buffer.array().length != buffer.capacity()))) {
+            Drops.increment();
+            return;
+        }
+        buffer.clear().order(ByteOrder.BIG_ENDIAN);
+        put(buffer.isDirect() ? DIRECT : HEAP, buffer.capacity(), buffer);
+    }
+
+    /**
+     * puts a item into the thread cache or the shared bucket.
+     */
+    private void put(int kind, int size, Object item) {
+        var shift = shiftFor(size);
+        //only exact size classes are pooled.
+        if (Integer.bitCount(size) != 1 || shift < MIN_SHIFT || shift > MaxShift) {
+            Drops.increment();
+            return;
+        }
+        var index = bucketIndex(kind, shift);
+        if (shift <= THREAD_CACHE_SHIFT && !Thread.currentThread().isVirtual()) {
+            var cache = ThreadCache.get();
+            if (cache[index] == null) {
+                cache[index] = item;
+                Releases.increment();
+                return;
+            }
+        }
+        if (BucketSizes[index].incrementAndGet() > MaxPerBucket) {
+            BucketSizes[index].decrementAndGet();
+            Drops.increment();
+            return;
+        }
+        Buckets[index].offer(item);
+        Releases.increment();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Leak Detection">
+    private <T> T track(T item) {
+        if (Outstanding != null) {
+            synchronized (Outstanding) {
+                Outstanding.put(item, new Throwable("buffer acquired by " + Thread.currentThread()));
+            }
+        }
+        return item;
+    }
+
+    private void untrack(Object item) {
+        if (Outstanding != null) {
+            Throwable site;
+            synchronized (Outstanding) {
+                site = Outstanding.remove(item);
+            }
+            if (site == null) {
+                LoggingHelper.getLogger(LOGGERNAME).log(Level.WARNING,
+                        "a buffer was released twice or was not acquired from this pool",
+                        new Throwable("released here"));
+            }
+        }
+    }
+
+    /**
+     * logs the acquire site of each buffer acquired and not yet released.
+     * this only works if the application runs in debug mode. otherwise buffers
+     * are not tracked.
+     *
+     * @return the amount of buffers not yet released. or -1 if the buffers are
+     * not tracked
+     */
+    public int reportLeaks() {
+        if (Outstanding == null) {
+            return -1;
+        }
+        Throwable[] sites;
+        synchronized (Outstanding) {
+            sites = Outstanding.values().toArray(Throwable[]::new);
+        }
+        var log = LoggingHelper.getLogger(LOGGERNAME);
+        for (var site : sites) {
+            log.log(Level.WARNING, "buffer not released", site);
+        }
+        return sites.length;
+    }
+    //</editor-fold>
+
+    /**
+     * @return a snapshot of the pool statistics.
+     */
+    public Stats getStats() {
+        long outstanding = -1;
+        if (Outstanding != null) {
+            synchronized (Outstanding) {
+                outstanding = Outstanding.size();
+            }
+        }
+        return new Stats(Hits.sum(), Misses.sum(), Releases.sum(), Drops.sum(), outstanding);
+    }
+
+    /**
+     * drops all the idle buffers on the shared buckets. (thread caches are
+     * kept)
+     */
+    public void trim() {
+        for (int i = 0; i < Buckets.length; i++) {
+            while (Buckets[i].poll() != null) {
+                BucketSizes[i].decrementAndGet();
+            }
+        }
+    }
+
+    private int allocationSize(int minSize) {
+        var shift = Math.max(MIN_SHIFT, shiftFor(minSize));
+        return shift > MaxShift ? minSize : 1 << shift;
+    }
+
+    private int bucketIndex(int kind, int shift) {
+        return kind * (MaxShift - MIN_SHIFT + 1) + shift - MIN_SHIFT;
+    }
+
+    /**
+     * @return the exponent of the smallest power of two that is equal or
+     * larger than size.
+     */
+    private static int shiftFor(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+}
@@ -0,0 +1,440 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Objects;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.lang.invoke.VarHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * bulk codecs to write and read arrays of primitives into or from a
+ * {@code byte[]} or a {@code ByteBuffer} with a explicit byte order. unlike
+ * {@link ByteUtils#toByteBuff(int)} and friends these methods write into a
+ * buffer provided by the caller and do not allocate per value.
+ * <br>
+ * the values are accessed thru {@link VarHandle} views over the bytes. thus
+ * the JIT compiles each access into a plain (possibly unaligned) load or
+ * store. the {@code ByteBuffer} variants work with heap and direct buffers,
+ * use absolute indexes and do not modify the buffer position.
+ *
+ * @author Eduardo Vindas
+ */
+public final class BulkCodec {
+
+    //<editor-fold defaultstate="collapsed" desc="Var Handles">
+    /**
+     * all the handles read and write in big endian. a little endian access
+     * swaps the value. (a single instruction in most platforms)
+     */
+    static final VarHandle SHORT_ARRAY = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    static final VarHandle INT_ARRAY = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    static final VarHandle LONG_ARRAY = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    static final VarHandle SHORT_BUFFER = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    static final VarHandle INT_BUFFER = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    static final VarHandle LONG_BUFFER = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    //</editor-fold>
+
+    private BulkCodec() {
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="byte[] codecs">
+    /**
+     * writes the values into the byte array.
+     *
+     * @param src the values to write
+     * @param srcOff the index of the first value to write
+     * @param len the amount of values to write
+     * @param dst the destination array
+     * @param dstOff the index on {@code dst} where to write the first value.
+     * @param order the byte order to use.
+     * @return the amount of bytes written.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int putInts(int[] src, int srcOff, int len, byte[] dst, int dstOff, ByteOrder order) {
+        final int bytes = checkRanges(srcOff, len, src.length, dstOff, dst.length, Integer.BYTES);
+        final boolean swap = swaps(order);
+        for (int index = srcOff, end = srcOff + len; index < end; index++, dstOff += Integer.BYTES) {
+            final int value = src[index];
+            INT_ARRAY.set(dst, dstOff, swap ? Integer.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * reads values from the byte array.
+     *
+     * @param src the bytes to read
+     * @param srcOff the index on {@code src} of the first value
+     * @param dst the destination of the values
+     * @param dstOff the index of {@code dst} where to store the first value
+     * @param len the amount of values to read
+     * @param order the byte order to use.
+     * @return the amount of bytes read.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int getInts(byte[] src, int srcOff, int[] dst, int dstOff, int len, ByteOrder order) {
+        final int bytes = checkRanges(dstOff, len, dst.length, srcOff, src.length, Integer.BYTES);
+        final boolean swap = swaps(order);
+        for (int index = dstOff, end = dstOff + len; index < end; index++, srcOff += Integer.BYTES) {
+            final int value = (int) INT_ARRAY.get(src, srcOff);
+            dst[index] = swap ? Integer.reverseBytes(value) : value;
+        }
+        return bytes;
+    }
+
+    /**
+     * writes the values into the byte array.
+     *
+     * @param src the values to write
+     * @param srcOff the index of the first value to write
+     * @param len the amount of values to write
+     * @param dst the destination array
+     * @param dstOff the index on {@code dst} where to write the first value.
+     * @param order the byte order to use.
+     * @return the amount of bytes written.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int putLongs(long[] src, int srcOff, int len, byte[] dst, int dstOff, ByteOrder order) {
+        final int bytes = checkRanges(srcOff, len, src.length, dstOff, dst.length, Long.BYTES);
+        final boolean swap = swaps(order);
+        for (int index = srcOff, end = srcOff + len; index < end; index++, dstOff += Long.BYTES) {
+            final long value = src[index];
+            LONG_ARRAY.set(dst, dstOff, swap ? Long.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * reads values from the byte array.
+     *
+     * @param src the bytes to read
+     * @param srcOff the index on {@code src} of the first value
+     * @param dst the destination of the values
+     * @param dstOff the index of {@code dst} where to store the first value
+     * @param len the amount of values to read
+     * @param order the byte order to use.
+     * @return the amount of bytes read.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int getLongs(byte[] src, int srcOff, long[] dst, int dstOff, int len, ByteOrder order) {
+        final int bytes = checkRanges(dstOff, len, dst.length, srcOff, src.length, Long.BYTES);
+        final boolean swap = swaps(order);
+        for (int index = dstOff, end = dstOff + len; index < end; index++, srcOff += Long.BYTES) {
+            final long value = (long) LONG_ARRAY.get(src, srcOff);
+            dst[index] = swap ? Long.reverseBytes(value) : value;
+        }
+        return bytes;
+    }
+
+    /**
+     * writes the values into the byte array. (as their raw IEEE 754 bits)
+     *
+     * @param src the values to write
+     * @param srcOff the index of the first value to write
+     * @param len the amount of values to write
+     * @param dst the destination array
+     * @param dstOff the index on {@code dst} where to write the first value.
+     * @param order the byte order to use.
+     * @return the amount of bytes written.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int putFloats(float[] src, int srcOff, int len, byte[] dst, int dstOff, ByteOrder order) {
+        final int bytes = checkRanges(srcOff, len, src.length, dstOff, dst.length, Float.BYTES);
+        final boolean swap = swaps(order);
+        for (int index = srcOff, end = srcOff + len; index < end; index++, dstOff += Float.BYTES) {
+            final int value = Float.floatToRawIntBits(src[index]);
+            INT_ARRAY.set(dst, dstOff, swap ? Integer.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * reads values from the byte array.
+     *
+     * @param src the bytes to read
+     * @param srcOff the index on {@code src} of the first value
+     * @param dst the destination of the values
+     * @param dstOff the index of {@code dst} where to store the first value
+     * @param len the amount of values to read
+     * @param order the byte order to use.
+     * @return the amount of bytes read.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int getFloats(byte[] src, int srcOff, float[] dst, int dstOff, int len, ByteOrder order) {
+        final int bytes = checkRanges(dstOff, len, dst.length, srcOff, src.length, Float.BYTES);
+        final boolean swap = swaps(order);
+        for (int index = dstOff, end = dstOff + len; index < end; index++, srcOff += Float.BYTES) {
+            final int value = (int) INT_ARRAY.get(src, srcOff);
+            dst[index] = Float.intBitsToFloat(swap ? Integer.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * writes the values into the byte array. (as their raw IEEE 754 bits)
+     *
+     * @param src the values to write
+     * @param srcOff the index of the first value to write
+     * @param len the amount of values to write
+     * @param dst the destination array
+     * @param dstOff the index on {@code dst} where to write the first value.
+     * @param order the byte order to use.
+     * @return the amount of bytes written.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int putDoubles(double[] src, int srcOff, int len, byte[] dst, int dstOff, ByteOrder order) {
+        final int bytes = checkRanges(srcOff, len, src.length, dstOff, dst.length, Double.BYTES);
+        final boolean swap = swaps(order);
+        for (int index = srcOff, end = srcOff + len; index < end; index++, dstOff += Double.BYTES) {
+            final long value = Double.doubleToRawLongBits(src[index]);
+            LONG_ARRAY.set(dst, dstOff, swap ? Long.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * reads values from the byte array.
+     *
+     * @param src the bytes to read
+     * @param srcOff the index on {@code src} of the first value
+     * @param dst the destination of the values
+     * @param dstOff the index of {@code dst} where to store the first value
+     * @param len the amount of values to read
+     * @param order the byte order to use.
+     * @return the amount of bytes read.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int getDoubles(byte[] src, int srcOff, double[] dst, int dstOff, int len, ByteOrder order) {
+        final int bytes = checkRanges(dstOff, len, dst.length, srcOff, src.length, Double.BYTES);
+        final boolean swap = swaps(order);
+        for (int index = dstOff, end = dstOff + len; index < end; index++, srcOff += Double.BYTES) {
+            final long value = (long) LONG_ARRAY.get(src, srcOff);
+            dst[index] = Double.longBitsToDouble(swap ? Long.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="ByteBuffer codecs">
+    /**
+     * writes the values into the buffer starting at the absolute
+     * {@code index}. the buffer position and its own byte order are ignored.
+     *
+     * @param src the values to write
+     * @param srcOff the index of the first value to write
+     * @param len the amount of values to write
+     * @param dst the destination buffer
+     * @param index the absolute index on {@code dst} where to write.
+     * @param order the byte order to use.
+     * @return the amount of bytes written.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read only.
+     */
+    public static int putInts(int[] src, int srcOff, int len, ByteBuffer dst, int index, ByteOrder order) {
+        final int bytes = checkRanges(srcOff, len, src.length, index, dst.limit(), Integer.BYTES);
+        final boolean swap = swaps(order);
+        for (int item = srcOff, end = srcOff + len; item < end; item++, index += Integer.BYTES) {
+            final int value = src[item];
+            INT_BUFFER.set(dst, index, swap ? Integer.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * reads values from the buffer starting at the absolute {@code index}.
+     * the buffer position and its own byte order are ignored.
+     *
+     * @param src the buffer to read
+     * @param index the absolute index on {@code src} of the first value
+     * @param dst the destination of the values
+     * @param dstOff the index of {@code dst} where to store the first value
+     * @param len the amount of values to read
+     * @param order the byte order to use.
+     * @return the amount of bytes read.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int getInts(ByteBuffer src, int index, int[] dst, int dstOff, int len, ByteOrder order) {
+        final int bytes = checkRanges(dstOff, len, dst.length, index, src.limit(), Integer.BYTES);
+        final boolean swap = swaps(order);
+        for (int item = dstOff, end = dstOff + len; item < end; item++, index += Integer.BYTES) {
+            final int value = (int) INT_BUFFER.get(src, index);
+            dst[item] = swap ? Integer.reverseBytes(value) : value;
+        }
+        return bytes;
+    }
+
+    /**
+     * writes the values into the buffer starting at the absolute
+     * {@code index}. the buffer position and its own byte order are ignored.
+     *
+     * @param src the values to write
+     * @param srcOff the index of the first value to write
+     * @param len the amount of values to write
+     * @param dst the destination buffer
+     * @param index the absolute index on {@code dst} where to write.
+     * @param order the byte order to use.
+     * @return the amount of bytes written.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read only.
+     */
+    public static int putLongs(long[] src, int srcOff, int len, ByteBuffer dst, int index, ByteOrder order) {
+        final int bytes = checkRanges(srcOff, len, src.length, index, dst.limit(), Long.BYTES);
+        final boolean swap = swaps(order);
+        for (int item = srcOff, end = srcOff + len; item < end; item++, index += Long.BYTES) {
+            final long value = src[item];
+            LONG_BUFFER.set(dst, index, swap ? Long.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * reads values from the buffer starting at the absolute {@code index}.
+     * the buffer position and its own byte order are ignored.
+     *
+     * @param src the buffer to read
+     * @param index the absolute index on {@code src} of the first value
+     * @param dst the destination of the values
+     * @param dstOff the index of {@code dst} where to store the first value
+     * @param len the amount of values to read
+     * @param order the byte order to use.
+     * @return the amount of bytes read.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int getLongs(ByteBuffer src, int index, long[] dst, int dstOff, int len, ByteOrder order) {
+        final int bytes = checkRanges(dstOff, len, dst.length, index, src.limit(), Long.BYTES);
+        final boolean swap = swaps(order);
+        for (int item = dstOff, end = dstOff + len; item < end; item++, index += Long.BYTES) {
+            final long value = (long) LONG_BUFFER.get(src, index);
+            dst[item] = swap ? Long.reverseBytes(value) : value;
+        }
+        return bytes;
+    }
+
+    /**
+     * writes the values into the buffer starting at the absolute
+     * {@code index}. (as their raw IEEE 754 bits) the buffer position and its
+     * own byte order are ignored.
+     *
+     * @param src the values to write
+     * @param srcOff the index of the first value to write
+     * @param len the amount of values to write
+     * @param dst the destination buffer
+     * @param index the absolute index on {@code dst} where to write.
+     * @param order the byte order to use.
+     * @return the amount of bytes written.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read only.
+     */
+    public static int putFloats(float[] src, int srcOff, int len, ByteBuffer dst, int index, ByteOrder order) {
+        final int bytes = checkRanges(srcOff, len, src.length, index, dst.limit(), Float.BYTES);
+        final boolean swap = swaps(order);
+        for (int item = srcOff, end = srcOff + len; item < end; item++, index += Float.BYTES) {
+            final int value = Float.floatToRawIntBits(src[item]);
+            INT_BUFFER.set(dst, index, swap ? Integer.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * reads values from the buffer starting at the absolute {@code index}.
+     * the buffer position and its own byte order are ignored.
+     *
+     * @param src the buffer to read
+     * @param index the absolute index on {@code src} of the first value
+     * @param dst the destination of the values
+     * @param dstOff the index of {@code dst} where to store the first value
+     * @param len the amount of values to read
+     * @param order the byte order to use.
+     * @return the amount of bytes read.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int getFloats(ByteBuffer src, int index, float[] dst, int dstOff, int len, ByteOrder order) {
+        final int bytes = checkRanges(dstOff, len, dst.length, index, src.limit(), Float.BYTES);
+        final boolean swap = swaps(order);
+        for (int item = dstOff, end = dstOff + len; item < end; item++, index += Float.BYTES) {
+            final int value = (int) INT_BUFFER.get(src, index);
+            dst[item] = Float.intBitsToFloat(swap ? Integer.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * writes the values into the buffer starting at the absolute
+     * {@code index}. (as their raw IEEE 754 bits) the buffer position and its
+     * own byte order are ignored.
+     *
+     * @param src the values to write
+     * @param srcOff the index of the first value to write
+     * @param len the amount of values to write
+     * @param dst the destination buffer
+     * @param index the absolute index on {@code dst} where to write.
+     * @param order the byte order to use.
+     * @return the amount of bytes written.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read only.
+     */
+    public static int putDoubles(double[] src, int srcOff, int len, ByteBuffer dst, int index, ByteOrder order) {
+        final int bytes = checkRanges(srcOff, len, src.length, index, dst.limit(), Double.BYTES);
+        final boolean swap = swaps(order);
+        for (int item = srcOff, end = srcOff + len; item < end; item++, index += Double.BYTES) {
+            final long value = Double.doubleToRawLongBits(src[item]);
+            LONG_BUFFER.set(dst, index, swap ? Long.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+
+    /**
+     * reads values from the buffer starting at the absolute {@code index}.
+     * the buffer position and its own byte order are ignored.
+     *
+     * @param src the buffer to read
+     * @param index the absolute index on {@code src} of the first value
+     * @param dst the destination of the values
+     * @param dstOff the index of {@code dst} where to store the first value
+     * @param len the amount of values to read
+     * @param order the byte order to use.
+     * @return the amount of bytes read.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int getDoubles(ByteBuffer src, int index, double[] dst, int dstOff, int len, ByteOrder order) {
+        final int bytes = checkRanges(dstOff, len, dst.length, index, src.limit(), Double.BYTES);
+        final boolean swap = swaps(order);
+        for (int item = dstOff, end = dstOff + len; item < end; item++, index += Double.BYTES) {
+            final long value = (long) LONG_BUFFER.get(src, index);
+            dst[item] = Double.longBitsToDouble(swap ? Long.reverseBytes(value) : value);
+        }
+        return bytes;
+    }
+    //</editor-fold>
+
+    /**
+     * @param order the requested order
+     * @return true if the values need to be swapped from the handles order.
+     */
+    private static boolean swaps(ByteOrder order) {
+        return Objects.requireNonNull(order, "the byte order cannot be null") != ByteOrder.BIG_ENDIAN;
+    }
+
+    /**
+     * checks the ranges of the values and bytes involved.
+     *
+     * @return the amount of bytes the values occupy.
+     */
+    private static int checkRanges(int valuesOff, int len, int valuesLength, int bytesOff, int bytesLength, int width) {
+        Objects.checkFromIndexSize(valuesOff, len, valuesLength);
+        final int bytes = Math.multiplyExact(len, width);
+        Objects.checkFromIndexSize(bytesOff, bytes, bytesLength);
+        return bytes;
+    }
+}
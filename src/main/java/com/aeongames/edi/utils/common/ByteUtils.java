@@ -13,6 +13,8 @@
 package com.aeongames.edi.utils.common;
 
 import java.nio.ByteBuffer;
+import java.nio.BufferOverflowException;
+import java.nio.CharBuffer;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -22,6 +24,28 @@ import java.util.Objects;
  */
 public class ByteUtils {
 
+    /**
+     * lower case hexadecimal digits.
+     */
+    private static final char[] HEX_LOWER = "0123456789abcdef".toCharArray();
+    /**
+     * upper case hexadecimal digits.
+     */
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+    /**
+     * the numeric value of each ASCII character as hexadecimal digit. or -1 if
+     * the character is not a hexadecimal digit.
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES[HEX_LOWER[i]] = (byte) i;
+            HEX_VALUES[HEX_UPPER[i]] = (byte) i;
+        }
+    }
+
     /**
      * Reverses the order of the bytes in the given byte array.
      * This method modifies the original array in place.
@@ -38,6 +62,118 @@ public class ByteUtils {
         return data;
     }
 
+    /**
+     * reverses the order of the bytes of each element of {@code width} bytes
+     * on the provided range. this swaps the byte order (endianness) of a packed
+     * array of shorts ({@code width} 2), ints or floats (4), or longs or
+     * doubles (8) in place. other widths are reversed byte by byte.
+     *
+     * @param data the byte array that contains the elements
+     * @param off the index of the first element
+     * @param len the amount of bytes to process. must be a multiple of
+     * {@code width}
+     * @param width the size in bytes of each element.
+     * @return the provided array.
+     * @throws IllegalArgumentException if width is not positive or len is not
+     * a multiple of it.
+     * @throws IndexOutOfBoundsException if the range is out of bounds.
+     */
+    public static byte[] reverse(final byte[] data, int off, int len, int width) {
+        Objects.checkFromIndexSize(off, len, data.length);
+        checkWidth(len, width);
+        final int end = off + len;
+        switch (width) {
+            case 1 -> {
+            }
+            case Short.BYTES -> {
+                for (; off < end; off += Short.BYTES) {
+                    BulkCodec.SHORT_ARRAY.set(data, off, Short.reverseBytes((short) BulkCodec.SHORT_ARRAY.get(data, off)));
+                }
+            }
+            case Integer.BYTES -> {
+                for (; off < end; off += Integer.BYTES) {
+                    BulkCodec.INT_ARRAY.set(data, off, Integer.reverseBytes((int) BulkCodec.INT_ARRAY.get(data, off)));
+                }
+            }
+            case Long.BYTES -> {
+                for (; off < end; off += Long.BYTES) {
+                    BulkCodec.LONG_ARRAY.set(data, off, Long.reverseBytes((long) BulkCodec.LONG_ARRAY.get(data, off)));
+                }
+            }
+            default -> {
+                for (; off < end; off += width) {
+                    for (int i = off, j = off + width - 1; i < j; i++, j--) {
+                        var swap = data[i];
+                        data[i] = data[j];
+                        data[j] = swap;
+                    }
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * reverses the order of the bytes of each element of {@code width} bytes
+     * between the buffer position and its limit. the buffer position is not
+     * modified. works with heap and direct buffers.
+     *
+     * @param buffer the buffer that contains the elements
+     * @param width the size in bytes of each element.
+     * @return the provided buffer.
+     * @throws IllegalArgumentException if width is not positive or the
+     * remaining bytes are not a multiple of it.
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read only.
+     * @see #reverse(byte[], int, int, int)
+     */
+    public static ByteBuffer reverse(final ByteBuffer buffer, int width) {
+        if (buffer.hasArray()) {
+            reverse(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), width);
+            return buffer;
+        }
+        checkWidth(buffer.remaining(), width);
+        int off = buffer.position();
+        final int end = buffer.limit();
+        switch (width) {
+            case 1 -> {
+            }
+            case Short.BYTES -> {
+                for (; off < end; off += Short.BYTES) {
+                    BulkCodec.SHORT_BUFFER.set(buffer, off, Short.reverseBytes((short) BulkCodec.SHORT_BUFFER.get(buffer, off)));
+                }
+            }
+            case Integer.BYTES -> {
+                for (; off < end; off += Integer.BYTES) {
+                    BulkCodec.INT_BUFFER.set(buffer, off, Integer.reverseBytes((int) BulkCodec.INT_BUFFER.get(buffer, off)));
+                }
+            }
+            case Long.BYTES -> {
+                for (; off < end; off += Long.BYTES) {
+                    BulkCodec.LONG_BUFFER.set(buffer, off, Long.reverseBytes((long) BulkCodec.LONG_BUFFER.get(buffer, off)));
+                }
+            }
+            default -> {
+                for (; off < end; off += width) {
+                    for (int i = off, j = off + width - 1; i < j; i++, j--) {
+                        var swap = buffer.get(i);
+                        buffer.put(i, buffer.get(j));
+                        buffer.put(j, swap);
+                    }
+                }
+            }
+        }
+        return buffer;
+    }
+
+    private static void checkWidth(int len, int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("the element width must be positive");
+        }
+        if (len % width != 0) {
+            throw new IllegalArgumentException("the length is not a multiple of the element width");
+        }
+    }
+
     /**
      * Converts a byte array to a hexadecimal string representation.
      * 
@@ -45,31 +181,41 @@ public class ByteUtils {
      * @return the hexadecimal string representation of the byte array
      */
     public static String byteArrayToString(final byte Array[]){
-        Objects.requireNonNull(Array,"Invalid Byte Array");
-        StringBuilder hexString = new StringBuilder(); // This will contain hash as hexidecimal
-        for (byte byte_data:Array) {
-            String hex = Integer.toHexString(0xff & byte_data);//to unsigned int
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
-        }
-        return hexString.toString();
+        return toHexString(Array, false);
+    }
+
+    /**
+     * Converts a byte array to a hexadecimal string representation.
+     *
+     * @param Array the bytes to convert
+     * @param upperCase whenever to use upper case digits.
+     * @return the hexadecimal string representation of the byte array
+     */
+    public static String toHexString(final byte Array[], boolean upperCase) {
+        Objects.requireNonNull(Array, "Invalid Byte Array");
+        final char[] hexString = new char[Math.multiplyExact(Array.length, 2)];
+        encodeHex(Array, 0, Array.length, hexString, 0, upperCase);
+        return new String(hexString);
     }
     
     /**
      * Converts a ByteBuffer array to a hexadecimal string representation.
+     * the whole buffer (from 0 to its limit) is converted and once done the
+     * buffer is rewind.
      * @param buffer the buffer to convert
      * @return the hexadecimal string representation of the byte array
      */
     public static String byteArrayToString(final ByteBuffer buffer){
         Objects.requireNonNull(buffer,"Invalid Byte Array");
         buffer.rewind();
-        int num=buffer.remaining();
-        byte values[]= new byte[num];
-        buffer.get(values);
-        buffer.rewind();
-        return byteArrayToString(values);
+        final char[] hexString = new char[Math.multiplyExact(buffer.limit(), 2)];
+        final char[] digits = HEX_LOWER;
+        for (int index = 0, out = 0; index < buffer.limit(); index++) {
+            int value = buffer.get(index) & 0xFF;
+            hexString[out++] = digits[value >>> 4];
+            hexString[out++] = digits[value & 0x0F];
+        }
+        return new String(hexString);
     }
 
     /**
@@ -78,18 +224,493 @@ public class ByteUtils {
      * rather left to right. 
      * @param hex
      * @return 
+     * @throws NumberFormatException if the string contains a character that
+     * is not a hexadecimal digit or its length is odd.
      */
     public static byte[] hexToBytes(String hex) {
         Objects.requireNonNull(hex, "the hex value cannot be null");
-       final byte values[] = new byte[hex.length()/2];
-        for (int i = 0; i < values.length; i++) {
-            int index = i * 2;
-            int j = Integer.parseUnsignedInt(hex.substring(index, index + 2), 16);
-            values[i] = (byte) j;
-        }
+        final byte values[] = new byte[hex.length() / 2];
+        decodeHex(hex, 0, hex.length(), values, 0);
         return values;
     }
-    
+
+    //<editor-fold defaultstate="collapsed" desc="Hex Codec">
+    /**
+     * encodes the bytes into hexadecimal characters. two characters are
+     * written per byte. this method does not allocate.
+     *
+     * @param src the bytes to encode
+     * @param srcOff the offset of the first byte to encode
+     * @param len the amount of bytes to encode
+     * @param dst the destination of the characters
+     * @param dstOff the offset on {@code dst} where to write.
+     * @param upperCase whenever to use upper case digits.
+     * @return the amount of characters written (2 * len)
+     * @throws IndexOutOfBoundsException if the ranges are out of the arrays.
+     */
+    public static int encodeHex(byte[] src, int srcOff, int len, char[] dst, int dstOff, boolean upperCase) {
+        Objects.checkFromIndexSize(srcOff, len, src.length);
+        Objects.checkFromIndexSize(dstOff, Math.multiplyExact(len, 2), dst.length);
+        final char[] digits = upperCase ? HEX_UPPER : HEX_LOWER;
+        for (int index = srcOff, end = srcOff + len; index < end; index++) {
+            int value = src[index] & 0xFF;
+            dst[dstOff++] = digits[value >>> 4];
+            dst[dstOff++] = digits[value & 0x0F];
+        }
+        return len * 2;
+    }
+
+    /**
+     * encodes the bytes into hexadecimal ASCII bytes. two bytes are written
+     * per byte. this method does not allocate.
+     *
+     * @param src the bytes to encode
+     * @param srcOff the offset of the first byte to encode
+     * @param len the amount of bytes to encode
+     * @param dst the destination of the ASCII characters
+     * @param dstOff the offset on {@code dst} where to write.
+     * @param upperCase whenever to use upper case digits.
+     * @return the amount of bytes written (2 * len)
+     * @throws IndexOutOfBoundsException if the ranges are out of the arrays.
+     */
+    public static int encodeHex(byte[] src, int srcOff, int len, byte[] dst, int dstOff, boolean upperCase) {
+        Objects.checkFromIndexSize(srcOff, len, src.length);
+        Objects.checkFromIndexSize(dstOff, Math.multiplyExact(len, 2), dst.length);
+        final char[] digits = upperCase ? HEX_UPPER : HEX_LOWER;
+        for (int index = srcOff, end = srcOff + len; index < end; index++) {
+            int value = src[index] & 0xFF;
+            dst[dstOff++] = (byte) digits[value >>> 4];
+            dst[dstOff++] = (byte) digits[value & 0x0F];
+        }
+        return len * 2;
+    }
+
+    /**
+     * encodes the remaining bytes of {@code src} into hexadecimal characters
+     * into {@code dst}. the position of both buffers is advanced. this method
+     * does not allocate.
+     *
+     * @param src the bytes to encode
+     * @param dst the destination of the characters.
+     * @param upperCase whenever to use upper case digits.
+     * @return the amount of characters written
+     * @throws BufferOverflowException if {@code dst} has not enough
+     * space for the encoded data. (nothing is written)
+     */
+    public static int encodeHex(ByteBuffer src, CharBuffer dst, boolean upperCase) {
+        final int len = src.remaining();
+        if (dst.remaining() / 2 < len) {
+            throw new BufferOverflowException();
+        }
+        final char[] digits = upperCase ? HEX_UPPER : HEX_LOWER;
+        int in = src.position(), out = dst.position();
+        for (final int end = in + len; in < end; in++) {
+            int value = src.get(in) & 0xFF;
+            dst.put(out++, digits[value >>> 4]);
+            dst.put(out++, digits[value & 0x0F]);
+        }
+        src.position(in);
+        dst.position(out);
+        return len * 2;
+    }
+
+    /**
+     * encodes the remaining bytes of {@code src} into hexadecimal ASCII bytes
+     * into {@code dst}. the position of both buffers is advanced. this method
+     * does not allocate.
+     *
+     * @param src the bytes to encode
+     * @param dst the destination of the ASCII characters.
+     * @param upperCase whenever to use upper case digits.
+     * @return the amount of bytes written
+     * @throws BufferOverflowException if {@code dst} has not enough
+     * space for the encoded data. (nothing is written)
+     */
+    public static int encodeHex(ByteBuffer src, ByteBuffer dst, boolean upperCase) {
+        final int len = src.remaining();
+        if (dst.remaining() / 2 < len) {
+            throw new BufferOverflowException();
+        }
+        if (src.hasArray() && dst.hasArray()) {
+            encodeHex(src.array(), src.arrayOffset() + src.position(), len,
+                    dst.array(), dst.arrayOffset() + dst.position(), upperCase);
+            src.position(src.position() + len);
+            dst.position(dst.position() + len * 2);
+            return len * 2;
+        }
+        final char[] digits = upperCase ? HEX_UPPER : HEX_LOWER;
+        int in = src.position(), out = dst.position();
+        for (final int end = in + len; in < end; in++) {
+            int value = src.get(in) & 0xFF;
+            dst.put(out++, (byte) digits[value >>> 4]);
+            dst.put(out++, (byte) digits[value & 0x0F]);
+        }
+        src.position(in);
+        dst.position(out);
+        return len * 2;
+    }
+
+    /**
+     * decodes hexadecimal characters (upper or lower case) into bytes. this
+     * method does not allocate (unless it fails)
+     *
+     * @param src the characters to decode.
+     * @param srcOff the offset of the first character to decode
+     * @param len the amount of characters to decode, must be even.
+     * @param dst the destination of the bytes
+     * @param dstOff the offset on {@code dst} where to write.
+     * @return the amount of bytes written (len / 2)
+     * @throws NumberFormatException if {@code len} is odd or a character is
+     * not a hexadecimal digit.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int decodeHex(CharSequence src, int srcOff, int len, byte[] dst, int dstOff) {
+        Objects.checkFromIndexSize(srcOff, len, src.length());
+        checkHexLength(len);
+        Objects.checkFromIndexSize(dstOff, len / 2, dst.length);
+        for (int index = srcOff, end = srcOff + len; index < end; index += 2) {
+            dst[dstOff++] = (byte) (hexValue(src.charAt(index), index) << 4
+                    | hexValue(src.charAt(index + 1), index + 1));
+        }
+        return len / 2;
+    }
+
+    /**
+     * decodes hexadecimal characters (upper or lower case) into bytes. this
+     * method does not allocate (unless it fails)
+     *
+     * @param src the characters to decode.
+     * @param srcOff the offset of the first character to decode
+     * @param len the amount of characters to decode, must be even.
+     * @param dst the destination of the bytes
+     * @param dstOff the offset on {@code dst} where to write.
+     * @return the amount of bytes written (len / 2)
+     * @throws NumberFormatException if {@code len} is odd or a character is
+     * not a hexadecimal digit.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int decodeHex(char[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        Objects.checkFromIndexSize(srcOff, len, src.length);
+        checkHexLength(len);
+        Objects.checkFromIndexSize(dstOff, len / 2, dst.length);
+        for (int index = srcOff, end = srcOff + len; index < end; index += 2) {
+            dst[dstOff++] = (byte) (hexValue(src[index], index) << 4
+                    | hexValue(src[index + 1], index + 1));
+        }
+        return len / 2;
+    }
+
+    /**
+     * decodes hexadecimal ASCII bytes (upper or lower case) into bytes. this
+     * method does not allocate (unless it fails) {@code src} and {@code dst}
+     * can be the same array as long as {@code dstOff <= srcOff}
+     *
+     * @param src the ASCII characters to decode.
+     * @param srcOff the offset of the first character to decode
+     * @param len the amount of characters to decode, must be even.
+     * @param dst the destination of the bytes
+     * @param dstOff the offset on {@code dst} where to write.
+     * @return the amount of bytes written (len / 2)
+     * @throws NumberFormatException if {@code len} is odd or a character is
+     * not a hexadecimal digit.
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds.
+     */
+    public static int decodeHex(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        Objects.checkFromIndexSize(srcOff, len, src.length);
+        checkHexLength(len);
+        Objects.checkFromIndexSize(dstOff, len / 2, dst.length);
+        for (int index = srcOff, end = srcOff + len; index < end; index += 2) {
+            dst[dstOff++] = (byte) (hexValue(src[index] & 0xFF, index) << 4
+                    | hexValue(src[index + 1] & 0xFF, index + 1));
+        }
+        return len / 2;
+    }
+
+    /**
+     * decodes the remaining hexadecimal characters of {@code src} into
+     * {@code dst}. the position of both buffers is advanced. this method does
+     * not allocate (unless it fails)
+     *
+     * @param src the characters to decode. the remaining must be even.
+     * @param dst the destination of the bytes.
+     * @return the amount of bytes written
+     * @throws NumberFormatException if the remaining is odd or a character is
+     * not a hexadecimal digit. (the positions are not modified)
+     * @throws BufferOverflowException if {@code dst} has not enough
+     * space.
+     */
+    public static int decodeHex(CharBuffer src, ByteBuffer dst) {
+        final int len = src.remaining();
+        checkHexLength(len);
+        if (dst.remaining() < len / 2) {
+            throw new BufferOverflowException();
+        }
+        int in = src.position(), out = dst.position();
+        for (final int end = in + len; in < end; in += 2) {
+            dst.put(out++, (byte) (hexValue(src.get(in), in) << 4
+                    | hexValue(src.get(in + 1), in + 1)));
+        }
+        src.position(in);
+        dst.position(out);
+        return len / 2;
+    }
+
+    /**
+     * decodes the remaining hexadecimal ASCII bytes of {@code src} into
+     * {@code dst}. the position of both buffers is advanced. this method does
+     * not allocate (unless it fails)
+     *
+     * @param src the ASCII characters to decode. the remaining must be even.
+     * @param dst the destination of the bytes.
+     * @return the amount of bytes written
+     * @throws NumberFormatException if the remaining is odd or a character is
+     * not a hexadecimal digit. (the positions are not modified)
+     * @throws BufferOverflowException if {@code dst} has not enough
+     * space.
+     */
+    public static int decodeHex(ByteBuffer src, ByteBuffer dst) {
+        final int len = src.remaining();
+        checkHexLength(len);
+        if (dst.remaining() < len / 2) {
+            throw new BufferOverflowException();
+        }
+        int in = src.position(), out = dst.position();
+        for (final int end = in + len; in < end; in += 2) {
+            dst.put(out++, (byte) (hexValue(src.get(in) & 0xFF, in) << 4
+                    | hexValue(src.get(in + 1) & 0xFF, in + 1)));
+        }
+        src.position(in);
+        dst.position(out);
+        return len / 2;
+    }
+
+    /**
+     * returns the numeric value of a hexadecimal digit.
+     *
+     * @param digit the character to convert
+     * @param index the index of the character, used to report errors.
+     * @return the value (0-15)
+     * @throws NumberFormatException if the character is not a hexadecimal
+     * digit.
+     */
+    private static int hexValue(int digit, int index) {
+        final int value = digit < HEX_VALUES.length ? HEX_VALUES[digit] : -1;
+        if (value < 0) {
+            throw new NumberFormatException("Invalid hex digit at index " + index);
+        }
+        return value;
+    }
+
+    private static void checkHexLength(int len) {
+        if ((len & 1) != 0) {
+            throw new NumberFormatException("the hex length must be even: " + len);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Comparison">
+    /**
+     * finds the first index where the ranges differ. (compared on bulk by the
+     * JDK)
+     *
+     * @param a the first array
+     * @param aOff the offset of the first range
+     * @param aLen the length of the first range
+     * @param b the second array
+     * @param bOff the offset of the second range
+     * @param bLen the length of the second range
+     * @return the index (relative to the offsets) of the first mismatch. the
+     * length of the shorter range if one is a prefix of the other. or -1 if
+     * they are equal.
+     */
+    public static int mismatch(byte[] a, int aOff, int aLen, byte[] b, int bOff, int bLen) {
+        return Arrays.mismatch(a, aOff, aOff + aLen, b, bOff, bOff + bLen);
+    }
+
+    /**
+     * finds the first index where the remaining bytes of the buffers differ.
+     * the positions are not changed.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @return the index (relative to the positions) of the first mismatch. the
+     * remaining of the shorter buffer if one is a prefix of the other. or -1 if
+     * they are equal.
+     */
+    public static int mismatch(ByteBuffer a, ByteBuffer b) {
+        return a.mismatch(b);
+    }
+
+    /**
+     * checks whenever the ranges have the same bytes.
+     *
+     * @param a the first array
+     * @param aOff the offset of the first range
+     * @param aLen the length of the first range
+     * @param b the second array
+     * @param bOff the offset of the second range
+     * @param bLen the length of the second range
+     * @return true if both ranges have the same length and bytes.
+     */
+    public static boolean equals(byte[] a, int aOff, int aLen, byte[] b, int bOff, int bLen) {
+        return Arrays.equals(a, aOff, aOff + aLen, b, bOff, bOff + bLen);
+    }
+
+    /**
+     * checks whenever the remaining bytes of the buffers are the same.
+     * regardless of their type (heap or direct) and byte order. the positions
+     * are not changed.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @return true if both have the same remaining bytes.
+     */
+    public static boolean equals(ByteBuffer a, ByteBuffer b) {
+        return a.remaining() == b.remaining() && a.mismatch(b) < 0;
+    }
+
+    /**
+     * compares the ranges lexicographically. the bytes are compared as
+     * unsigned values (thus 0xFF is larger than 0x01). as digests and
+     * hexadecimal strings sort.
+     *
+     * @param a the first array
+     * @param aOff the offset of the first range
+     * @param aLen the length of the first range
+     * @param b the second array
+     * @param bOff the offset of the second range
+     * @param bLen the length of the second range
+     * @return a negative value, zero or a positive value if the first range is
+     * less, equal or greater than the second.
+     */
+    public static int compare(byte[] a, int aOff, int aLen, byte[] b, int bOff, int bLen) {
+        return Arrays.compareUnsigned(a, aOff, aOff + aLen, b, bOff, bOff + bLen);
+    }
+
+    /**
+     * compares the remaining bytes of the buffers lexicographically. the
+     * bytes are compared as unsigned values. (unlike
+     * {@link ByteBuffer#compareTo(ByteBuffer)}) the positions are not changed.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @return a negative value, zero or a positive value if the first buffer
+     * is less, equal or greater than the second.
+     */
+    public static int compare(ByteBuffer a, ByteBuffer b) {
+        var index = a.mismatch(b);
+        if (index >= 0 && index < a.remaining() && index < b.remaining()) {
+            return Integer.compare(a.get(a.position() + index) & 0xFF, b.get(b.position() + index) & 0xFF);
+        }
+        return a.remaining() - b.remaining();
+    }
+
+    /**
+     * checks whenever the arrays are equal on a time that does not depend on
+     * their content. thus the position of the first difference cannot be
+     * learned by timing the comparison. use this for MACs, tokens or digests
+     * that verify untrusted data.
+     *
+     * @param a the first array
+     * @param b the second array
+     * @return true if both arrays have the same length and bytes.
+     */
+    public static boolean constantTimeEquals(byte[] a, byte[] b) {
+        Objects.requireNonNull(a, "the arrays cannot be null");
+        Objects.requireNonNull(b, "the arrays cannot be null");
+        int difference = a.length ^ b.length;
+        for (int i = 0; i < a.length; i++) {
+            //when the lengths differ the bytes of a are compared with themselves.
+            difference |= a[i] ^ (i < b.length ? b[i] : a[i]);
+        }
+        return difference == 0;
+    }
+
+    /**
+     * checks whenever the remaining bytes of the buffers are equal on a time
+     * that does not depend on their content. the positions are not changed.
+     * see {@link #constantTimeEquals(byte[], byte[])}
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @return true if both buffers have the same remaining bytes.
+     */
+    public static boolean constantTimeEquals(ByteBuffer a, ByteBuffer b) {
+        final int aStart = a.position(), bStart = b.position();
+        final int length = a.remaining();
+        int difference = length ^ b.remaining();
+        for (int i = 0; i < length; i++) {
+            var value = a.get(aStart + i);
+            difference |= value ^ (i < b.remaining() ? b.get(bStart + i) : value);
+        }
+        return difference == 0;
+    }
+
+    /**
+     * extracts a 64 bits fingerprint of a digest. the first 8 bytes (big
+     * endian) are used as the bytes of a cryptographic digest are already
+     * uniformly distributed. thus the value can be used as hash map key
+     * without converting the digest into a hexadecimal string. digests shorter
+     * than 8 bytes are padded with zeros.
+     *
+     * @param digest the digest
+     * @return the fingerprint
+     */
+    public static long fingerprint64(byte[] digest) {
+        Objects.requireNonNull(digest, "the digest cannot be null");
+        if (digest.length >= Long.BYTES) {
+            return (long) BulkCodec.LONG_ARRAY.get(digest, 0);
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = value << 8 | (i < digest.length ? digest[i] & 0xFF : 0);
+        }
+        return value;
+    }
+
+    /**
+     * extracts a 64 bits fingerprint of the digest on the remaining bytes of
+     * the buffer. the position is not changed. see
+     * {@link #fingerprint64(byte[])}
+     *
+     * @param digest the digest
+     * @return the fingerprint
+     */
+    public static long fingerprint64(ByteBuffer digest) {
+        final int start = digest.position(), length = digest.remaining();
+        if (length >= Long.BYTES) {
+            return (long) BulkCodec.LONG_BUFFER.get(digest, start);
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = value << 8 | (i < length ? digest.get(start + i) & 0xFF : 0);
+        }
+        return value;
+    }
+
+    /**
+     * extracts the 64 bits fingerprint of a digest written as hexadecimal
+     * (for example the values of {@link MultiDigester}). the result is the
+     * same of {@link #fingerprint64(byte[])} over the decoded digest. only
+     * the first 16 characters are read and nothing is allocated.
+     *
+     * @param hex the hexadecimal digest
+     * @return the fingerprint
+     * @throws NumberFormatException if the characters read are not
+     * hexadecimal digits or their amount is odd.
+     */
+    public static long fingerprint64(CharSequence hex) {
+        Objects.requireNonNull(hex, "the digest cannot be null");
+        final int length = Math.min(hex.length(), Long.BYTES * 2);
+        checkHexLength(length);
+        long value = 0;
+        for (int i = 0; i < Long.BYTES * 2; i++) {
+            value = value << 4 | (i < length ? hexValue(hex.charAt(i), i) : 0);
+        }
+        return value;
+    }
+    //</editor-fold>
+
     /**
      * wraps the provided byte to a byteBuffer.
      *
@@ -189,7 +810,7 @@ public class ByteUtils {
      * @return the array contained the value.
      */
     public static final ByteBuffer toByteBuff(boolean data) {
-        return ByteBuffer.allocate(1).putDouble(data ? 0x01 : 0x00).asReadOnlyBuffer();
+        return ByteBuffer.allocate(1).put((byte) (data ? 0x01 : 0x00)).asReadOnlyBuffer();
     }
 
 }
\ No newline at end of file
@@ -11,10 +11,15 @@
  */
 package com.aeongames.edi.utils.common;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.charset.CharacterCodingException;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class CharsetCompatibilityChecker {
 
@@ -46,6 +51,49 @@ public final class CharsetCompatibilityChecker {
         '0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
         '+', '/', '-', '_', '='
     };
+    /**
+     * the Base64 characters sorted. for binary search.
+     */
+    private static final char[] BASE64_SORTED = toBase64Map.clone();
+    /**
+     * the characters checked for ASCII compatibility. (0x00 to 0x7E)
+     */
+    private static final String ASCII_RANGE;
+    /**
+     * the profiles computed so far.
+     */
+    private static final ConcurrentHashMap<Charset, CharsetProfile> Profiles = new ConcurrentHashMap<>();
+
+    static {
+        Arrays.sort(BASE64_SORTED);
+        var range = new StringBuilder(0x7F);
+        for (char c = 0; c < 0x7F; c++) {
+            range.append(c);
+        }
+        ASCII_RANGE = range.toString();
+    }
+
+    /**
+     * the compatibility of a Character set with ASCII. computed once per
+     * charset. see {@link #profileOf(Charset)}
+     *
+     * @param charset the Character set described
+     * @param asciiByteCompatible whenever ASCII characters are encoded as the
+     * same single byte. see {@link #isAsciiByteCompatible(Charset)}
+     * @param asciiCongruent whenever all ASCII characters are encoded with the
+     * same numeric value on a code unit of {@code codeUnitWidth} bytes. (for
+     * example UTF-16 and UTF-32)
+     * @param base64Congruent whenever the Base64 characters are encoded
+     * congruently. see {@link #charsetCompatibleWithBase64(Charset)}
+     * @param codeUnitWidth the bytes per code unit. (for variable width
+     * charsets a approximation)
+     * @param bigEndian whenever the significant byte is the last one of the
+     * code unit.
+     */
+    public static record CharsetProfile(Charset charset, boolean asciiByteCompatible, boolean asciiCongruent,
+            boolean base64Congruent, int codeUnitWidth, boolean bigEndian) {
+
+    }
 
     /**
      * Checks if the given Character set is compatible with ASCII.
@@ -55,20 +103,21 @@ public final class CharsetCompatibilityChecker {
      * otherwise.
      */
     public static boolean isAsciiByteCompatible(Charset charset) {
-        CharsetEncoder encoder = charset.newEncoder();
-        for (int i = 0; i < 0x7F; i++) { // ASCII range
-            char c = (char) i;
-            if (!encoder.canEncode(c)) {
-                // If the character cannot be encoded, it's not ASCII-compatible
-                return false;
-            }
-            byte[] encodedBytes = String.valueOf(c).getBytes(charset);
-            if (encodedBytes.length != 1 || (encodedBytes[0] & 0xFF) != i) {
-                // If the encoding doesn't match the ASCII byte value, it's not compatible
-                return false;
-            }
-        }
-        return true;
+        return profileOf(charset).asciiByteCompatible();
+    }
+
+    /**
+     * gathers the compatibility profile of the Character set. the profile is
+     * computed on the first call (with a single bulk encode) and cached. thus
+     * later calls are a map lookup.
+     *
+     * @param charset the Character set to profile
+     * @return the profile of the Character set.
+     */
+    public static CharsetProfile profileOf(Charset charset) {
+        Objects.requireNonNull(charset, "the charset cannot be null");
+        var profile = Profiles.get(charset);
+        return profile != null ? profile : Profiles.computeIfAbsent(charset, CharsetCompatibilityChecker::computeProfile);
     }
 
     /**
@@ -90,6 +139,16 @@ public final class CharsetCompatibilityChecker {
      * otherwise.
      */
     public static boolean isAsciiNumericCompatible(Charset charset, final char checkMap[]) {
+        if (profileOf(charset).asciiCongruent() && isAscii(checkMap)) {
+            return true;
+        }
+        return checkNumericCompatible(charset, checkMap);
+    }
+
+    /**
+     * checks each character of the map encoding it on its own.
+     */
+    private static boolean checkNumericCompatible(Charset charset, final char checkMap[]) {
         CharsetEncoder encoder = charset.newEncoder();
         for (char c : checkMap) {
             if (!encoder.canEncode(c)) {
@@ -212,7 +271,95 @@ public final class CharsetCompatibilityChecker {
      * congruently
      */
     public static boolean charsetCompatibleWithBase64(Charset charset) {
-        return isAsciiNumericCompatible(charset, toBase64Map);
+        return profileOf(charset).base64Congruent();
+    }
+
+    /**
+     * @param c the character to check
+     * @return true if the character is on the Base64 alphabet (including the
+     * URL safe characters and the padding)
+     */
+    static boolean isBase64Character(char c) {
+        return Arrays.binarySearch(BASE64_SORTED, c) >= 0;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Profiles">
+    private static boolean isAscii(char[] map) {
+        for (char c : map) {
+            if (c >= 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * computes the profile encoding the whole ASCII range at once. if the
+     * charset cannot encode it the Base64 characters are checked on their own
+     * (the slow way)
+     */
+    private static CharsetProfile computeProfile(Charset charset) {
+        if (!charset.canEncode()) {
+            //decode only charsets. nothing can be encoded thus nothing is compatible
+            return new CharsetProfile(charset, false, false, false, 1, false);
+        }
+        var fallbackWidth = Math.max(1, (int) Math.floor(charset.newEncoder().averageBytesPerChar()));
+        ByteBuffer encoded;
+        try {
+            encoded = charset.newEncoder().encode(CharBuffer.wrap(ASCII_RANGE));
+        } catch (CharacterCodingException ex) {
+            var base64 = checkNumericCompatible(charset, toBase64Map);
+            return new CharsetProfile(charset, false, false, base64, fallbackWidth, false);
+        }
+        var bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        var bomLength = bomLength(bytes);
+        var length = bytes.length - bomLength;
+        if (length % ASCII_RANGE.length() != 0) {
+            //variable width for ASCII. the Base64 characters might still be fine.
+            var base64 = checkNumericCompatible(charset, toBase64Map);
+            return new CharsetProfile(charset, false, false, base64, fallbackWidth, false);
+        }
+        var width = length / ASCII_RANGE.length();
+        //the endianness from the unit of 'A'
+        var unitA = bomLength + 'A' * width;
+        var bigEndian = width > 1 && bytes[unitA + width - 1] == 'A';
+        var significant = bigEndian ? width - 1 : 0;
+        boolean congruent = true, base64 = true;
+        for (int c = 0; c < ASCII_RANGE.length(); c++) {
+            var unit = bomLength + c * width;
+            var matches = true;
+            for (int i = 0; i < width && matches; i++) {
+                matches = (bytes[unit + i] & 0xFF) == (i == significant ? c : 0);
+            }
+            if (!matches) {
+                congruent = false;
+                if (Arrays.binarySearch(BASE64_SORTED, (char) c) >= 0) {
+                    base64 = false;
+                }
+            }
+        }
+        return new CharsetProfile(charset, congruent && width == 1, congruent, base64, width, bigEndian);
+    }
+
+    /**
+     * @return the length of the BOM the encoder wrote. 0 if none.
+     */
+    private static int bomLength(byte[] encoded) {
+        if (encoded.length >= 4 && ((encoded[0] == 0 && encoded[1] == 0 && encoded[2] == BYTE_ORDER_MARK_BYTES[0] && encoded[3] == BYTE_ORDER_MARK_BYTES[1])
+                || (encoded[0] == BYTE_ORDER_MARK_BYTES[1] && encoded[1] == BYTE_ORDER_MARK_BYTES[0] && encoded[2] == 0 && encoded[3] == 0))) {
+            //a UTF-32 BOM. unless it is a UTF-16 BOM followed by the 0x00 character
+            return (encoded.length - 4) % ASCII_RANGE.length() == 0 ? 4 : 2;
+        }
+        if (encoded.length >= 2 && ((encoded[0] == BYTE_ORDER_MARK_BYTES[0] && encoded[1] == BYTE_ORDER_MARK_BYTES[1])
+                || (encoded[0] == BYTE_ORDER_MARK_BYTES[1] && encoded[1] == BYTE_ORDER_MARK_BYTES[0]))) {
+            return 2;
+        }
+        if (encoded.length >= 3 && (encoded[0] & 0xFF) == 0xEF && (encoded[1] & 0xFF) == 0xBB && (encoded[2] & 0xFF) == 0xBF) {
+            return 3;
+        }
+        return 0;
     }
+    //</editor-fold>
 
 }
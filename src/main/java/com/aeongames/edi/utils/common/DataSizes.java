@@ -11,10 +11,19 @@
  */
 package com.aeongames.edi.utils.common;
 
+import java.util.Objects;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * this Enumeration class is designed to define the Data Sizes from Byte to Exabyte
  * the general idea is for convert data and having a convenient way to count and 
  * redundantly enumerate them. 
+ * <br>
+ * sizes can be formatted (for example "1.50 GiB") into a {@link Appendable}
+ * without creating intermediate Strings or boxing the values and parsed back.
+ * the binary (IEC) suffixes ("KiB", "MiB"...) represent the sizes on powers of
+ * 1024 and the decimal ones ("KB", "MB"...) the sizes on powers of 1000.
  *
  * @author Eduardo Vindas C
  * @version 2
@@ -30,6 +39,30 @@ public enum DataSizes {
     Kilobyte("Kilobytes", "KB", 1000L, 1024L),
     bytee("bytes", "B", 1L, 1L);
 
+    /**
+     * the maximum amount of decimals supported when formatting.
+     */
+    public static final int MAX_PRECISION = 3;
+    /**
+     * the maximum amount of decimals supported when parsing.
+     */
+    private static final int MAX_PARSE_DECIMALS = 9;
+    /**
+     * the powers of 10 that fit on a long.
+     */
+    private static final long[] POW10 = new long[19];
+    /**
+     * the sizes from the largest to the smallest. (a cached copy of values())
+     */
+    private static final DataSizes[] SIZES = values();
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
     /**
      * the name of this Data Size. 
      */
@@ -47,6 +80,10 @@ public enum DataSizes {
      * the amount of bytes of this data size.
      */
     private final long Bytes;
+    /**
+     * the binary (IEC) suffix of this data size. i.e "KiB, MiB" etc.
+     */
+    private final String BinarySuffix;
 
     /**
      * creates the Enumeration with its own properties.
@@ -60,6 +97,7 @@ public enum DataSizes {
         Name = name;
         Suffix = suff;
         Bytes = bibytes;
+        BinarySuffix = suff.length() > 1 ? suff.charAt(0) + "iB" : suff;
     }
 
     /**
@@ -96,4 +134,316 @@ public enum DataSizes {
     public String getSuffix() {
         return Suffix;
     }
+
+    /**
+     * returns the amount of bytes that represent this data size.
+     *
+     * @param binary whenever to use the binary (power of 1024) size or the
+     * decimal (power of 1000) one.
+     * @return the amount of bytes
+     */
+    public long size(boolean binary) {
+        return binary ? Bytes : DecSize;
+    }
+
+    /**
+     * returns the binary (IEC) suffix of this data size
+     *
+     * @return a String that represent the binary suffix for this data size.
+     * i.e "KiB", "MiB"
+     */
+    public String getBinarySuffix() {
+        return BinarySuffix;
+    }
+
+    /**
+     * returns the suffix of this data size
+     *
+     * @param binary whenever to return the binary (IEC) suffix
+     * @return a String that represent the suffix for this data size
+     */
+    public String getSuffix(boolean binary) {
+        return binary ? BinarySuffix : Suffix;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Range helpers">
+    /**
+     * picks the largest data size that is not larger than the provided
+     * amount of bytes. thus the amount is at the least 1 of it.
+     *
+     * @param bytes the amount of bytes. the sign is ignored
+     * @param binary whenever to use binary (power of 1024) sizes
+     * @return the best data size to represent the amount. {@link #bytee} for
+     * 0
+     */
+    public static DataSizes bestUnit(long bytes, boolean binary) {
+        var magnitude = bytes == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(bytes);
+        for (var size : SIZES) {
+            if (magnitude >= size.size(binary)) {
+                return size;
+            }
+        }
+        return bytee;
+    }
+
+    /**
+     * @return the next larger data size. or null if this is the largest
+     */
+    private DataSizes larger() {
+        return ordinal() == 0 ? null : SIZES[ordinal() - 1];
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Formatting">
+    /**
+     * formats the amount of bytes on the best data size. for example
+     * "1.50 GiB"
+     *
+     * @param bytes the amount of bytes
+     * @param binary whenever to use binary (power of 1024) sizes
+     * @param precision the amount of decimals. from 0 to
+     * {@link #MAX_PRECISION}
+     * @return the formatted size
+     */
+    public static String format(long bytes, boolean binary, int precision) {
+        return formatTo(new StringBuilder(16), bytes, binary, precision).toString();
+    }
+
+    /**
+     * formats the amount of bytes on the best data size into the builder.
+     *
+     * @param out where to write the size
+     * @param bytes the amount of bytes
+     * @param binary whenever to use binary (power of 1024) sizes
+     * @param precision the amount of decimals. from 0 to
+     * {@link #MAX_PRECISION}
+     * @return the builder provided
+     */
+    public static StringBuilder formatTo(StringBuilder out, long bytes, boolean binary, int precision) {
+        try {
+            formatTo((Appendable) out, bytes, binary, precision);
+            return out;
+        } catch (IOException ex) {
+            //a StringBuilder does not throw.
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * formats the amount of bytes on the best data size. if rounding makes
+     * the value reach the next data size (for example 1023.999 KiB with no
+     * decimals) the next data size is used ("1 MiB").
+     *
+     * @param <A> the type of the output
+     * @param out where to write the size
+     * @param bytes the amount of bytes
+     * @param binary whenever to use binary (power of 1024) sizes
+     * @param precision the amount of decimals. from 0 to
+     * {@link #MAX_PRECISION}. the bytes are always written without decimals
+     * @return the output provided
+     * @throws IOException if the output fails
+     */
+    public static <A extends Appendable> A formatTo(A out, long bytes, boolean binary, int precision) throws IOException {
+        checkPrecision(precision);
+        var unit = bestUnit(bytes, binary);
+        var scaled = unit.scale(bytes, binary, precision);
+        var larger = unit.larger();
+        if (larger != null && Long.compareUnsigned(scaled, (binary ? 1024 : 1000) * POW10[precision]) >= 0) {
+            unit = larger;
+        }
+        return unit.appendTo(out, bytes, binary, precision);
+    }
+
+    /**
+     * formats the amount of bytes on this data size. for example
+     * {@code Megabyte.appendTo(out, 1_572_864, true, 2)} writes "1.50 MiB"
+     *
+     * @param <A> the type of the output
+     * @param out where to write the size
+     * @param bytes the amount of bytes
+     * @param binary whenever to use the binary (power of 1024) size
+     * @param precision the amount of decimals. from 0 to
+     * {@link #MAX_PRECISION}. the bytes are always written without decimals
+     * @return the output provided
+     * @throws IOException if the output fails
+     */
+    public <A extends Appendable> A appendTo(A out, long bytes, boolean binary, int precision) throws IOException {
+        checkPrecision(precision);
+        Objects.requireNonNull(out, "the output cannot be null");
+        if (this == bytee) {
+            precision = 0;
+        }
+        var scaled = scale(bytes, binary, precision);
+        if (bytes < 0) {
+            out.append('-');
+        }
+        var divisor = POW10[precision];
+        appendDigits(out, Long.divideUnsigned(scaled, divisor), 1);
+        if (precision > 0) {
+            out.append('.');
+            appendDigits(out, Long.remainderUnsigned(scaled, divisor), precision);
+        }
+        out.append(' ').append(getSuffix(binary));
+        return out;
+    }
+
+    /**
+     * computes the amount of bytes on this data size times 10 to the
+     * precision. rounded half up.
+     *
+     * @return the scaled magnitude (unsigned)
+     */
+    private long scale(long bytes, boolean binary, int precision) {
+        final long magnitude = bytes < 0 ? -bytes : bytes;
+        final long unit = size(binary);
+        if (unit == 1) {
+            return magnitude * POW10[precision];
+        }
+        if (binary) {
+            //magnitude * 10^precision / 2^shift on 128 bits.
+            final int shift = Long.numberOfTrailingZeros(unit);
+            final long high = Math.unsignedMultiplyHigh(magnitude, POW10[precision]);
+            final long low = magnitude * POW10[precision];
+            return ((high << (64 - shift)) | (low >>> shift)) + ((low >>> (shift - 1)) & 1);
+        }
+        //the decimal sizes are 10^3 or more and the precision 3 at most.
+        final long divisor = unit / POW10[precision];
+        final long remainder = Long.remainderUnsigned(magnitude, divisor);
+        return Long.divideUnsigned(magnitude, divisor) + (Long.compareUnsigned(remainder, divisor - remainder) >= 0 ? 1 : 0);
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("the precision must be between 0 and " + MAX_PRECISION);
+        }
+    }
+
+    /**
+     * writes the (unsigned) value. padding it with zeros to the width.
+     */
+    private static void appendDigits(Appendable out, long value, int width) throws IOException {
+        if (value < 0) {
+            //above Long.MAX_VALUE. write all but the last digit and then it.
+            appendDigits(out, Long.divideUnsigned(value, 10), width - 1);
+            out.append((char) ('0' + Long.remainderUnsigned(value, 10)));
+            return;
+        }
+        int digits = 1;
+        while (digits < POW10.length && value >= POW10[digits]) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            out.append('0');
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            out.append((char) ('0' + value / POW10[i] % 10));
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Parsing">
+    /**
+     * parses a size such as "1.5GB", "512 KiB" or "100". the format is
+     * strict: digits, optionally a dot and up to 9 decimals, optionally a
+     * single space and a suffix. the binary suffixes ("KiB") are powers of
+     * 1024, the decimal ones ("KB" or "kB") powers of 1000. without suffix
+     * the amount is bytes. the result is rounded half up to whole bytes.
+     *
+     * @param text the text to parse
+     * @return the amount of bytes
+     * @throws NumberFormatException if the text is not a valid size or the
+     * size does not fit on a long.
+     */
+    public static long parse(CharSequence text) {
+        Objects.requireNonNull(text, "the text cannot be null");
+        final int length = text.length();
+        int index = 0;
+        long integer = 0;
+        for (; index < length && isDigit(text.charAt(index)); index++) {
+            var digit = text.charAt(index) - '0';
+            if (integer > (Long.MAX_VALUE - digit) / 10) {
+                throw invalid(text, "is too large");
+            }
+            integer = integer * 10 + digit;
+        }
+        if (index == 0) {
+            throw invalid(text, "does not start with a digit");
+        }
+        long fraction = 0;
+        int decimals = 0;
+        if (index < length && text.charAt(index) == '.') {
+            for (index++; index < length && isDigit(text.charAt(index)); index++) {
+                if (++decimals > MAX_PARSE_DECIMALS) {
+                    throw invalid(text, "has too many decimals");
+                }
+                fraction = fraction * 10 + text.charAt(index) - '0';
+            }
+            if (decimals == 0) {
+                throw invalid(text, "has no decimals after the dot");
+            }
+        }
+        var unit = bytee;
+        var binary = true;
+        if (index < length) {
+            if (text.charAt(index) == ' ') {
+                index++;
+            }
+            unit = null;
+            for (var size : SIZES) {
+                if (matches(text, index, size.Suffix) || (size == Kilobyte && matches(text, index, "kB"))) {
+                    unit = size;
+                    binary = false;
+                    break;
+                } else if (matches(text, index, size.BinarySuffix)) {
+                    unit = size;
+                    break;
+                }
+            }
+            if (unit == null) {
+                throw invalid(text, "has a unknown suffix");
+            }
+        }
+        if (unit == bytee && decimals > 0) {
+            throw invalid(text, "has decimals of a byte");
+        }
+        final long unitBytes = unit.size(binary);
+        if (Math.multiplyHigh(integer, unitBytes) != 0 || integer * unitBytes < 0) {
+            throw invalid(text, "is too large");
+        }
+        long result = integer * unitBytes;
+        if (decimals > 0) {
+            //fraction * unit / 10^decimals. split as the product could overflow.
+            final long divisor = POW10[decimals];
+            result += fraction * (unitBytes / divisor)
+                    + (fraction * (unitBytes % divisor) + divisor / 2) / divisor;
+            if (result < 0) {
+                throw invalid(text, "is too large");
+            }
+        }
+        return result;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return true if the rest of the text (from the index) is the suffix.
+     */
+    private static boolean matches(CharSequence text, int from, String suffix) {
+        if (text.length() - from != suffix.length()) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (text.charAt(from + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static NumberFormatException invalid(CharSequence text, String reason) {
+        return new NumberFormatException("the size \"" + text + "\" " + reason);
+    }
+    //</editor-fold>
 }
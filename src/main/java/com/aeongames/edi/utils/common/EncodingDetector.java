@@ -0,0 +1,368 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.io.BufferedInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * guesses the encoding of unlabeled text by looking at a bounded prefix of it.
+ * the streams are peeked (using mark/reset) thus the data is not consumed and
+ * can be handed to the decoder picked.
+ * <br>
+ * the checks, in order:
+ * <ol>
+ * <li>a Byte Order Mark (UTF-32, UTF-16, UTF-8)</li>
+ * <li>the zero bytes pattern of UTF-32 and UTF-16 text (mostly ASCII text
+ * has zeros on all but one byte of each code unit)</li>
+ * <li>ASCII only content</li>
+ * <li>valid UTF-8 multi byte sequences</li>
+ * <li>otherwise the data is assumed to be
+ * {@link CharsetCompatibilityChecker#ASCII_PLUS}</li>
+ * </ol>
+ * unlike {@link CharsetCompatibilityChecker#RemoveBOM(Charset, byte[])} the
+ * data is never modified.
+ *
+ * @author Eduardo Vindas
+ */
+public final class EncodingDetector {
+
+    /**
+     * the default amount of bytes to look at.
+     */
+    public static final int DEFAULT_LOOKAHEAD = 8 * 1024;
+    private static final Charset UTF_32BE = Charset.forName("UTF-32BE");
+    private static final Charset UTF_32LE = Charset.forName("UTF-32LE");
+
+    /**
+     * how the detected data can be read as ASCII/UTF-8 the cheapest way.
+     */
+    public static enum FastPath {
+        /**
+         * the data already is ASCII or UTF-8. use it as is (after the BOM)
+         */
+        PASSTHROUGH,
+        /**
+         * the data is ASCII in code units of several bytes. the significant
+         * byte can be taken as is. see {@link SkipByteChannel}
+         */
+        NARROWING,
+        /**
+         * the data needs to be decoded. see {@link TranscodingInputStream}
+         */
+        FULL_DECODE
+    }
+
+    /**
+     * the result of a detection.
+     *
+     * @param charset the charset detected
+     * @param confidence how sure the detection is. from 0 to 1. 1 means a BOM
+     * was found or the whole data was checked.
+     * @param fastPath the recommended way to read the data.
+     * @param bomLength the size of the BOM at the start of the data. 0 if none
+     * @param stride the bytes per code unit
+     * @param bigEndian whenever the significant byte is the last of each code
+     * unit.
+     * @param asciiOnly whenever the data checked only had ASCII characters.
+     */
+    public static record Detection(Charset charset, double confidence, FastPath fastPath,
+            int bomLength, int stride, boolean bigEndian, boolean asciiOnly) {
+
+    }
+
+    private EncodingDetector() {
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Streams">
+    /**
+     * wraps the stream (if needed) so it can be peeked by
+     * {@link #detect(InputStream, int)}
+     *
+     * @param in the stream to wrap
+     * @return the same stream if it supports mark/reset or a buffered one.
+     */
+    public static InputStream peekable(InputStream in) {
+        Objects.requireNonNull(in, "the stream cannot be null");
+        return in.markSupported() ? in : new BufferedInputStream(in, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * detects the encoding of the stream looking at up to
+     * {@link #DEFAULT_LOOKAHEAD} bytes.
+     *
+     * @param in a stream that supports mark/reset. see
+     * {@link #peekable(InputStream)}
+     * @return the detection
+     * @throws IOException if the stream fails
+     */
+    public static Detection detect(InputStream in) throws IOException {
+        return detect(in, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * detects the encoding of the stream. the stream is marked, read up to
+     * {@code lookahead} bytes and reset. thus its position is not changed.
+     *
+     * @param in a stream that supports mark/reset. see
+     * {@link #peekable(InputStream)}
+     * @param lookahead the maximum amount of bytes to look at.
+     * @return the detection
+     * @throws IOException if the stream fails
+     * @throws IllegalArgumentException if the stream does not support
+     * mark/reset
+     */
+    public static Detection detect(InputStream in, int lookahead) throws IOException {
+        //a pushback stream is not peeked thru unread. its buffer size is unknown
+        //and the bytes that do not fit would be lost.
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("the stream does not support mark/reset. wrap it with peekable()");
+        }
+        var pool = BufferPool.shared();
+        var prefix = pool.acquireArray(checkLookahead(lookahead));
+        try {
+            in.mark(lookahead);
+            int read;
+            try {
+                read = in.readNBytes(prefix, 0, lookahead);
+            } finally {
+                in.reset();
+            }
+            return detect(prefix, 0, read, read < lookahead);
+        } finally {
+            pool.release(prefix);
+        }
+    }
+
+    private static int checkLookahead(int lookahead) {
+        if (lookahead < 4) {
+            throw new IllegalArgumentException("the lookahead must be at the least 4 bytes");
+        }
+        return lookahead;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Detection">
+    /**
+     * detects the encoding of the remaining bytes of the buffer. the buffer
+     * position is not changed.
+     *
+     * @param prefix the start of the data
+     * @param complete whenever the buffer holds all the data. (thus a
+     * incomplete character at the end is a error)
+     * @return the detection
+     */
+    public static Detection detect(ByteBuffer prefix, boolean complete) {
+        if (prefix.hasArray()) {
+            return detect(prefix.array(), prefix.arrayOffset() + prefix.position(), prefix.remaining(), complete);
+        }
+        var copy = new byte[prefix.remaining()];
+        prefix.get(prefix.position(), copy);
+        return detect(copy, 0, copy.length, complete);
+    }
+
+    /**
+     * detects the encoding of the bytes.
+     *
+     * @param data the start of the data
+     * @param off the index of the first byte
+     * @param len the amount of bytes
+     * @param complete whenever the range holds all the data. (thus a
+     * incomplete character at the end is a error)
+     * @return the detection
+     */
+    public static Detection detect(byte[] data, int off, int len, boolean complete) {
+        Objects.checkFromIndexSize(off, len, data.length);
+        if (len == 0) {
+            return new Detection(StandardCharsets.UTF_8, 0, FastPath.PASSTHROUGH, 0, 1, false, true);
+        }
+        var bom = detectBom(data, off, len);
+        if (bom != null) {
+            return bom;
+        }
+        var wide = detectWide(data, off, len, complete);
+        if (wide != null) {
+            return wide;
+        }
+        var end = off + len;
+        int index = off;
+        while (index < end && data[index] > 0) {
+            index++;
+        }
+        if (index == end) {
+            //ASCII only. UTF-8 as the rest of the data can have other characters.
+            return new Detection(StandardCharsets.UTF_8, complete ? 1 : 0.9, FastPath.PASSTHROUGH, 0, 1, false, true);
+        }
+        var sequences = validUtf8(data, index, end, complete);
+        if (sequences >= 0) {
+            //valid without multibyte sequences: ASCII with a NUL or a lead cut by the lookahead.
+            var asciiOnly = sequences == 0 && isAscii(data, index, end);
+            var confidence = complete ? 1 : Math.min(0.99, 0.75 + sequences * 0.05);
+            return new Detection(StandardCharsets.UTF_8, confidence, FastPath.PASSTHROUGH, 0, 1, false, asciiOnly);
+        }
+        return new Detection(CharsetCompatibilityChecker.ASCII_PLUS, 0.3, FastPath.FULL_DECODE, 0, 1, false, false);
+    }
+
+    private static Detection detectBom(byte[] data, int off, int len) {
+        int b0 = data[off] & 0xFF,
+                b1 = len > 1 ? data[off + 1] & 0xFF : -1,
+                b2 = len > 2 ? data[off + 2] & 0xFF : -1,
+                b3 = len > 3 ? data[off + 3] & 0xFF : -1;
+        if (b0 == 0x00 && b1 == 0x00 && b2 == 0xFE && b3 == 0xFF) {
+            return wideDetection(UTF_32BE, 1, data, off + 4, len - 4, 4, 4, true);
+        } else if (b0 == 0xFF && b1 == 0xFE && b2 == 0x00 && b3 == 0x00) {
+            return wideDetection(UTF_32LE, 1, data, off + 4, len - 4, 4, 4, false);
+        } else if (b0 == 0xFE && b1 == 0xFF) {
+            return wideDetection(StandardCharsets.UTF_16BE, 1, data, off + 2, len - 2, 2, 2, true);
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            return wideDetection(StandardCharsets.UTF_16LE, 1, data, off + 2, len - 2, 2, 2, false);
+        } else if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            var ascii = true;
+            for (int i = off + 3; i < off + len && ascii; i++) {
+                ascii = data[i] >= 0;
+            }
+            return new Detection(StandardCharsets.UTF_8, 1, FastPath.PASSTHROUGH, 3, 1, false, ascii);
+        }
+        return null;
+    }
+
+    /**
+     * looks for the zero bytes pattern of UTF-32 and UTF-16.
+     */
+    private static Detection detectWide(byte[] data, int off, int len, boolean complete) {
+        int[] zeros = new int[4];
+        int[] counts = new int[4];
+        for (int i = 0; i < len; i++) {
+            counts[i & 3]++;
+            if (data[off + i] == 0) {
+                zeros[i & 3]++;
+            }
+        }
+        if (len >= 4) {
+            double z0 = ratio(zeros[0], counts[0]), z1 = ratio(zeros[1], counts[1]),
+                    z2 = ratio(zeros[2], counts[2]), z3 = ratio(zeros[3], counts[3]);
+            //UTF-32 never uses the high byte. and rarely the second.
+            if (z0 == 1 && z1 >= 0.9 && z3 < 0.5) {
+                return wideDetection(UTF_32BE, confidence(z1 - z3, complete), data, off, len, 0, 4, true);
+            }
+            if (z3 == 1 && z2 >= 0.9 && z0 < 0.5) {
+                return wideDetection(UTF_32LE, confidence(z2 - z0, complete), data, off, len, 0, 4, false);
+            }
+        }
+        if (len >= 2) {
+            double even = ratio(zeros[0] + zeros[2], counts[0] + counts[2]),
+                    odd = ratio(zeros[1] + zeros[3], counts[1] + counts[3]);
+            if (even >= 0.6 && odd < 0.1) {
+                return wideDetection(StandardCharsets.UTF_16BE, confidence(even - odd, complete), data, off, len, 0, 2, true);
+            }
+            if (odd >= 0.6 && even < 0.1) {
+                return wideDetection(StandardCharsets.UTF_16LE, confidence(odd - even, complete), data, off, len, 0, 2, false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * creates the detection of a UTF-16 or UTF-32 charset. checking if the
+     * code units are all ASCII (so they can be narrowed)
+     */
+    private static Detection wideDetection(Charset charset, double confidence, byte[] data, int off, int len,
+            int bomLength, int stride, boolean bigEndian) {
+        var significant = bigEndian ? stride - 1 : 0;
+        var ascii = true;
+        for (int unit = off; unit + stride <= off + len && ascii; unit += stride) {
+            for (int i = 0; i < stride && ascii; i++) {
+                var value = data[unit + i];
+                ascii = i == significant ? value >= 0 : value == 0;
+            }
+        }
+        return new Detection(charset, confidence, ascii ? FastPath.NARROWING : FastPath.FULL_DECODE,
+                bomLength, stride, bigEndian, ascii);
+    }
+
+    private static double ratio(int count, int total) {
+        return total == 0 ? 0 : (double) count / total;
+    }
+
+    private static double confidence(double difference, boolean complete) {
+        return Math.min(complete ? 1 : 0.95, 0.5 + difference / 2);
+    }
+
+    private static boolean isAscii(byte[] data, int index, int end) {
+        for (; index < end; index++) {
+            if (data[index] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * validates the UTF-8 sequences of the range.
+     *
+     * @return the amount of multi byte sequences found. or -1 if the data is
+     * not valid UTF-8
+     */
+    private static int validUtf8(byte[] data, int index, int end, boolean complete) {
+        int sequences = 0;
+        while (index < end) {
+            var lead = data[index] & 0xFF;
+            if (lead < 0x80) {
+                index++;
+                continue;
+            }
+            int length, min;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                length = 2;
+                min = 0x80;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                length = 3;
+                min = 0x800;
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                length = 4;
+                min = 0x10000;
+            } else {
+                return -1;
+            }
+            if (index + length > end) {
+                //cut by the lookahead. fine unless that is all the data.
+                for (int i = index + 1; i < end; i++) {
+                    if ((data[i] & 0xC0) != 0x80) {
+                        return -1;
+                    }
+                }
+                return complete ? -1 : sequences;
+            }
+            int codePoint = lead & (0xFF >> (length + 1));
+            for (int i = 1; i < length; i++) {
+                var next = data[index + i] & 0xFF;
+                if ((next & 0xC0) != 0x80) {
+                    return -1;
+                }
+                codePoint = codePoint << 6 | next & 0x3F;
+            }
+            if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                    || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                return -1;
+            }
+            sequences++;
+            index += length;
+        }
+        return sequences;
+    }
+    //</editor-fold>
+}
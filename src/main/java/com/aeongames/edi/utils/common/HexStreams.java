@@ -0,0 +1,348 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * wraps streams and channels to encode or decode hexadecimal text
+ * incrementally. similar to what {@code Base64.getDecoder().wrap(stream)}
+ * does for Base64. each wrapper holds a fixed internal buffer, thus a dump of
+ * any size is processed in constant memory.
+ * <br>
+ * the hexadecimal text is handled as ASCII bytes. the decoders accept upper
+ * and lower case digits and fail with a {@code IOException} if the text
+ * contains anything else (including white spaces) or an odd amount of digits.
+ *
+ * @author Eduardo Vindas
+ */
+public final class HexStreams {
+
+    /**
+     * the size of the internal buffer of each wrapper.
+     */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private HexStreams() {
+    }
+
+    /**
+     * wraps a output stream so the bytes written into the returned stream are
+     * written as hexadecimal text into {@code out}. closing the returned stream
+     * closes {@code out}.
+     *
+     * @param out the stream to write the hexadecimal text to
+     * @param upperCase whenever to use upper case digits.
+     * @return a stream that encodes the written bytes.
+     */
+    public static OutputStream wrapEncoder(OutputStream out, boolean upperCase) {
+        return new HexEncoderOutputStream(Objects.requireNonNull(out, "the stream cannot be null"), upperCase);
+    }
+
+    /**
+     * wraps a input stream that contains hexadecimal text so the returned
+     * stream reads the decoded bytes. closing the returned stream closes
+     * {@code in}.
+     *
+     * @param in the stream that contains the hexadecimal text
+     * @return a stream that decodes the hexadecimal text.
+     */
+    public static InputStream wrapDecoder(InputStream in) {
+        return new HexDecoderInputStream(Objects.requireNonNull(in, "the stream cannot be null"));
+    }
+
+    /**
+     * wraps a channel so the bytes written into the returned channel are
+     * written as hexadecimal text into {@code out}. closing the returned
+     * channel closes {@code out}.
+     *
+     * @param out the channel to write the hexadecimal text to
+     * @param upperCase whenever to use upper case digits.
+     * @return a channel that encodes the written bytes.
+     */
+    public static WritableByteChannel wrapEncoder(WritableByteChannel out, boolean upperCase) {
+        return new HexEncoderChannel(Objects.requireNonNull(out, "the channel cannot be null"), upperCase);
+    }
+
+    /**
+     * wraps a channel that contains hexadecimal text so the returned channel
+     * reads the decoded bytes. closing the returned channel closes
+     * {@code in}.
+     *
+     * @param in the channel that contains the hexadecimal text
+     * @return a channel that decodes the hexadecimal text.
+     */
+    public static ReadableByteChannel wrapDecoder(ReadableByteChannel in) {
+        return new HexDecoderChannel(Objects.requireNonNull(in, "the channel cannot be null"));
+    }
+
+    /**
+     * encodes bytes written into hexadecimal text. the text is buffered and
+     * written when the buffer is full, flushed or closed.
+     */
+    private static final class HexEncoderOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final boolean upperCase;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final byte[] single = new byte[1];
+        private int count = 0;
+        private boolean closed = false;
+
+        private HexEncoderOutputStream(OutputStream out, boolean upperCase) {
+            this.out = out;
+            this.upperCase = upperCase;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            ensureOpen();
+            while (len > 0) {
+                if (count == buffer.length) {
+                    drain();
+                }
+                var chunk = Math.min(len, (buffer.length - count) / 2);
+                count += ByteUtils.encodeHex(b, off, chunk, buffer, count, upperCase);
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            drain();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            try (out) {
+                drain();
+            } finally {
+                closed = true;
+            }
+        }
+
+        private void drain() throws IOException {
+            if (count > 0) {
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+
+    /**
+     * decodes hexadecimal text read from the wrapped stream. a odd digit at
+     * the end of a read is carried to the next one.
+     */
+    private static final class HexDecoderInputStream extends InputStream {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final byte[] single = new byte[1];
+        /**
+         * a digit carried from the previous read. or -1 if none.
+         */
+        private int pending = -1;
+        private boolean closed = false;
+
+        private HexDecoderInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            int produced = 0;
+            //loop until at the least one byte was produced. (a read can provide a single digit)
+            while (produced == 0) {
+                int start = 0;
+                if (pending >= 0) {
+                    buffer[0] = (byte) pending;
+                    start = 1;
+                }
+                //on long. a request over 1 GiB would overflow the digit count.
+                var want = (int) Math.min(buffer.length, (len - produced) * 2L);
+                var read = in.read(buffer, start, want - start);
+                if (read < 0) {
+                    if (pending >= 0) {
+                        throw new IOException("the hex text has an odd amount of digits");
+                    }
+                    return -1;
+                }
+                var total = start + read;
+                var even = total & ~1;
+                try {
+                    produced += ByteUtils.decodeHex(buffer, 0, even, b, off + produced);
+                } catch (NumberFormatException nfe) {
+                    throw new IOException(nfe);
+                }
+                pending = (total & 1) != 0 ? buffer[even] & 0xFF : -1;
+            }
+            return produced;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (in.available() + (pending >= 0 ? 1 : 0)) / 2;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            in.close();
+        }
+    }
+
+    /**
+     * encodes the bytes written into hexadecimal text using a fixed staging
+     * buffer.
+     */
+    private static final class HexEncoderChannel implements WritableByteChannel {
+
+        private final WritableByteChannel out;
+        private final boolean upperCase;
+        private final ByteBuffer staging = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private HexEncoderChannel(WritableByteChannel out, boolean upperCase) {
+            this.out = out;
+            this.upperCase = upperCase;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!out.isOpen()) {
+                throw new ClosedChannelException();
+            }
+            var written = src.remaining();
+            var limit = src.limit();
+            try {
+                while (src.hasRemaining()) {
+                    src.limit(src.position() + Math.min(src.remaining(), staging.capacity() / 2));
+                    staging.clear();
+                    ByteUtils.encodeHex(src, staging, upperCase);
+                    src.limit(limit);
+                    staging.flip();
+                    while (staging.hasRemaining()) {
+                        out.write(staging);
+                    }
+                }
+            } finally {
+                src.limit(limit);
+            }
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return out.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * decodes hexadecimal text read from the wrapped channel using a fixed
+     * staging buffer. a odd digit at the end of a read is carried to the next
+     * one.
+     */
+    private static final class HexDecoderChannel implements ReadableByteChannel {
+
+        private final ReadableByteChannel in;
+        private final ByteBuffer staging = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private HexDecoderChannel(ReadableByteChannel in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!in.isOpen()) {
+                throw new ClosedChannelException();
+            }
+            if (!dst.hasRemaining()) {
+                return 0;
+            }
+            //the staging buffer is always in "write" mode. and might hold a carried digit.
+            var room = (int) Math.min(staging.capacity(), dst.remaining() * 2L);
+            staging.limit(Math.max(room, staging.position() + 1));
+            var read = in.read(staging);
+            if (read < 0 && staging.position() > 0) {
+                throw new IOException("the hex text has an odd amount of digits");
+            } else if (read < 0) {
+                return -1;
+            }
+            staging.flip();
+            var even = staging.remaining() & ~1;
+            var limit = staging.limit();
+            staging.limit(staging.position() + even);
+            int produced;
+            try {
+                produced = ByteUtils.decodeHex(staging, dst);
+            } catch (NumberFormatException nfe) {
+                throw new IOException(nfe);
+            }
+            staging.limit(limit);
+            staging.compact();
+            return produced;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return in.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * a file backed variant of {@link SkipByteChannel}. the file is memory mapped
+ * in windows and the significant byte of each code unit is gathered straight
+ * from the mapping. thus the data is not copied thru intermediate streams.
+ * <br>
+ * the code unit size (stride) and byte order are detected from the file
+ * header. a Byte Order Mark (UTF-8, UTF-16 or UTF-32) is honored and skipped.
+ * without a BOM the charset provided is used. or if none the layout of the
+ * zeros on the first 4 bytes is used (ASCII text encoded as UTF-16 or UTF-32
+ * has zeros on all but the significant byte).
+ *
+ * @author Eduardo Vindas
+ */
+public final class MappedSkipChannel implements ReadableByteChannel {
+
+    /**
+     * the size of each mapped window. a multiple of every supported stride.
+     */
+    private static final long WINDOW_SIZE = 16L * 1024 * 1024;
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    private final FileChannel File;
+    /**
+     * whenever the file channel was opened by this class (and is closed by
+     * it).
+     */
+    private final boolean OwnsFile;
+    private final int Stride;
+    private final boolean BigEndian;
+    private final int BomLength;
+    /**
+     * the file offset where the data ends. (excluding any incomplete code
+     * unit)
+     */
+    private final long DataEnd;
+    /**
+     * the file offset of the next window to map.
+     */
+    private long nextWindow;
+    private ByteBuffer Window;
+    private boolean open = true;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Factories">
+    /**
+     * opens the file and detects its layout from the header.
+     *
+     * @param file the file to read
+     * @return a channel that reads the significant bytes of the file.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    public static MappedSkipChannel open(Path file) throws IOException {
+        return open(file, null);
+    }
+
+    /**
+     * opens the file. if the file has no BOM the provided charset determines
+     * its layout.
+     *
+     * @param file the file to read
+     * @param charset the expected charset. or null to detect it.
+     * @return a channel that reads the significant bytes of the file.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    public static MappedSkipChannel open(Path file, Charset charset) throws IOException {
+        var channel = FileChannel.open(Objects.requireNonNull(file, "the file cannot be null"), StandardOpenOption.READ);
+        try {
+            return new MappedSkipChannel(channel, true, charset);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * reads the provided channel from its start. the channel is not closed
+     * when this channel is closed.
+     *
+     * @param file the file to read
+     * @param charset the expected charset. or null to detect it.
+     * @return a channel that reads the significant bytes of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static MappedSkipChannel open(FileChannel file, Charset charset) throws IOException {
+        return new MappedSkipChannel(Objects.requireNonNull(file, "the file cannot be null"), false, charset);
+    }
+    //</editor-fold>
+
+    private MappedSkipChannel(FileChannel file, boolean ownsFile, Charset charset) throws IOException {
+        File = file;
+        OwnsFile = ownsFile;
+        var header = ByteBuffer.allocate(4);
+        while (header.hasRemaining() && file.read(header, header.position()) > 0) {
+        }
+        header.flip();
+        int b0 = header.remaining() > 0 ? header.get(0) & 0xFF : -1,
+                b1 = header.remaining() > 1 ? header.get(1) & 0xFF : -1,
+                b2 = header.remaining() > 2 ? header.get(2) & 0xFF : -1,
+                b3 = header.remaining() > 3 ? header.get(3) & 0xFF : -1;
+        if (b0 == 0x00 && b1 == 0x00 && b2 == 0xFE && b3 == 0xFF) {
+            Stride = 4;
+            BigEndian = true;
+            BomLength = 4;
+        } else if (b0 == 0xFF && b1 == 0xFE && b2 == 0x00 && b3 == 0x00) {
+            Stride = 4;
+            BigEndian = false;
+            BomLength = 4;
+        } else if (b0 == 0xFE && b1 == 0xFF) {
+            Stride = 2;
+            BigEndian = true;
+            BomLength = 2;
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            Stride = 2;
+            BigEndian = false;
+            BomLength = 2;
+        } else if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            Stride = 1;
+            BigEndian = false;
+            BomLength = 3;
+        } else if (charset != null) {
+            Stride = SkipByteChannel.strideOf(charset);
+            BigEndian = SkipByteChannel.isBigEndian(charset);
+            BomLength = 0;
+        } else {
+            //no BOM, no hint. look at where the zeros are.
+            BomLength = 0;
+            if (b0 == 0x00 && b1 == 0x00 && b2 == 0x00 && b3 > 0x00) {
+                Stride = 4;
+                BigEndian = true;
+            } else if (b0 > 0x00 && b1 == 0x00 && b2 == 0x00 && b3 == 0x00) {
+                Stride = 4;
+                BigEndian = false;
+            } else if (b0 == 0x00 && b1 > 0x00) {
+                Stride = 2;
+                BigEndian = true;
+            } else if (b0 > 0x00 && b1 == 0x00) {
+                Stride = 2;
+                BigEndian = false;
+            } else {
+                Stride = 1;
+                BigEndian = false;
+            }
+        }
+        var size = file.size();
+        DataEnd = BomLength + Math.max(0, size - BomLength) / Stride * Stride;
+        nextWindow = BomLength;
+        Window = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * reads the significant bytes into {@code dst}.
+     *
+     * @param dst the buffer to fill
+     * @return the amount of bytes produced or -1 at the end of the file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        int produced = 0;
+        while (dst.hasRemaining()) {
+            if (!Window.hasRemaining()) {
+                if (nextWindow >= DataEnd) {
+                    break;
+                }
+                var length = Math.min(WINDOW_SIZE, DataEnd - nextWindow);
+                Window = File.map(FileChannel.MapMode.READ_ONLY, nextWindow, length);
+                nextWindow += length;
+            }
+            produced += SkipByteChannel.gather(Window, dst, Stride, BigEndian ? Stride - 1 : 0);
+        }
+        return produced == 0 ? -1 : produced;
+    }
+
+    /**
+     * narrows the rest of the file into a single buffer. for a file without
+     * padding (stride 1) that fits on a single mapping the mapping is returned
+     * as is (no copy).
+     *
+     * @return a read only buffer with the remaining significant bytes.
+     * @throws IOException if the file cannot be mapped.
+     * @throws IllegalStateException if the narrowed data is larger than 2GB
+     */
+    public ByteBuffer toByteBuffer() throws IOException {
+        var remaining = remaining();
+        if (remaining > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("the data is too large for a single buffer");
+        }
+        if (Stride == 1 && !Window.hasRemaining() && open) {
+            var mapped = File.map(FileChannel.MapMode.READ_ONLY, nextWindow, remaining);
+            nextWindow = DataEnd;
+            return mapped.asReadOnlyBuffer();
+        }
+        var result = ByteBuffer.allocateDirect((int) remaining);
+        while (result.hasRemaining() && read(result) > 0) {
+        }
+        return result.flip().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a stream that reads this channel. closing the stream closes this
+     * channel.
+     */
+    public InputStream asInputStream() {
+        return Channels.newInputStream(this);
+    }
+
+    /**
+     * @return the amount of significant bytes not yet read.
+     */
+    public long remaining() {
+        return Window.remaining() / Stride + (DataEnd - nextWindow) / Stride;
+    }
+
+    /**
+     * @return the bytes per code unit detected.
+     */
+    public int getStride() {
+        return Stride;
+    }
+
+    /**
+     * @return whenever the significant byte is the last of each code unit.
+     */
+    public boolean isBigEndian() {
+        return BigEndian;
+    }
+
+    /**
+     * @return the size of the BOM found at the start of the file. 0 if none.
+     */
+    public int getBomLength() {
+        return BomLength;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * closes the channel. the mapping is released once collected. the file
+     * channel is closed only if it was opened by this class.
+     *
+     * @throws IOException if the file fails to close.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        Window = ByteBuffer.allocate(0);
+        if (OwnsFile) {
+            File.close();
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Map;
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.concurrent.Semaphore;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * computes several digests (for example SHA-256 and MD5) of the same data on
+ * a single read. each chunk read updates all the digests. thus the source is
+ * read once regardless of the amount of algorithms.
+ * <br>
+ * on the concurrent mode each digest runs on its own (virtual) thread. the
+ * chunks are copied into pooled buffers shared by all the digests (reference
+ * counted) and a bounded amount of them is in flight at any time. thus the
+ * memory used is constant and a slow digest throttles the reader. this is
+ * worth it when the digests are expensive compared to the read. for a single
+ * cheap digest the sequential mode is faster.
+ * <br>
+ * the digests are returned as lower case hexadecimal strings keyed by
+ * algorithm. a instance can be reused but is not thread safe.
+ *
+ * @author Eduardo Vindas
+ */
+public final class MultiDigester {
+
+    /**
+     * the size of the chunks read and handed to the digests.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+    /**
+     * the default amount of chunks in flight on concurrent mode.
+     */
+    private static final int DEFAULT_RING_SIZE = 8;
+
+    private final MessageDigest[] Digests;
+    private final boolean Concurrent;
+    private final int RingSize;
+
+    /**
+     * creates a sequential digester for the provided algorithms.
+     *
+     * @param algorithms the digest algorithms. for example "SHA-256", "MD5"
+     * @throws NoSuchAlgorithmException if a algorithm is not available
+     */
+    public MultiDigester(String... algorithms) throws NoSuchAlgorithmException {
+        this(false, DEFAULT_RING_SIZE, algorithms);
+    }
+
+    /**
+     * creates a digester for the provided algorithms.
+     *
+     * @param concurrent whenever to run each digest on its own thread
+     * @param ringSize the maximum amount of chunks in flight on concurrent
+     * mode.
+     * @param algorithms the digest algorithms. for example "SHA-256", "MD5"
+     * @throws NoSuchAlgorithmException if a algorithm is not available
+     */
+    public MultiDigester(boolean concurrent, int ringSize, String... algorithms) throws NoSuchAlgorithmException {
+        if (Objects.requireNonNull(algorithms, "the algorithms cannot be null").length == 0) {
+            throw new IllegalArgumentException("at the least one algorithm is required");
+        }
+        if (ringSize <= 0) {
+            throw new IllegalArgumentException("the ring size must be positive");
+        }
+        Digests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            Digests[i] = MessageDigest.getInstance(algorithms[i]);
+        }
+        Concurrent = concurrent && algorithms.length > 1;
+        RingSize = ringSize;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Digest">
+    /**
+     * reads the stream to its end and digest its bytes.
+     *
+     * @param in the stream to read. not closed.
+     * @return the hexadecimal digests keyed by algorithm.
+     * @throws IOException if the stream fails.
+     */
+    public Map<String, String> digest(InputStream in) throws IOException {
+        var pool = BufferPool.shared();
+        var raw = pool.acquireArray(CHUNK_SIZE);
+        try (var fanout = newFanout()) {
+            var chunk = ByteBuffer.wrap(raw);
+            int read;
+            while ((read = in.read(raw)) >= 0) {
+                fanout.write(chunk.clear().limit(read));
+            }
+            return fanout.finish();
+        } finally {
+            pool.release(raw);
+        }
+    }
+
+    /**
+     * reads the channel to its end and digest its bytes.
+     *
+     * @param in the channel to read. not closed.
+     * @return the hexadecimal digests keyed by algorithm.
+     * @throws IOException if the channel fails.
+     */
+    public Map<String, String> digest(ReadableByteChannel in) throws IOException {
+        var pool = BufferPool.shared();
+        var chunk = pool.acquire(CHUNK_SIZE, true);
+        try (var fanout = newFanout()) {
+            while (in.read(chunk) >= 0) {
+                fanout.write(chunk.flip());
+                chunk.clear();
+            }
+            return fanout.finish();
+        } finally {
+            pool.release(chunk);
+        }
+    }
+
+    /**
+     * reads the stream to its end and digest the decoded Base64 data. the same
+     * data {@link SkipInputStream#getWrappedStream(InputStream, Charset, MessageDigest)}
+     * would digest.
+     *
+     * @param in the stream with the Base64 text. not closed.
+     * @param charset the encoding of the text.
+     * @return the hexadecimal digests keyed by algorithm.
+     * @throws IOException if the stream fails or the text is not valid
+     * Base64.
+     */
+    public Map<String, String> digestBase64(InputStream in, Charset charset) throws IOException {
+        var pool = BufferPool.shared();
+        var raw = pool.acquireArray(CHUNK_SIZE);
+        try (var fanout = newFanout();
+                var engine = new Base64DigestEngine(SkipByteChannel.strideOf(charset),
+                        SkipByteChannel.isBigEndian(charset), fanout::write)) {
+            var chunk = ByteBuffer.wrap(raw);
+            int read;
+            while ((read = in.read(raw)) >= 0) {
+                engine.update(chunk.clear().limit(read));
+            }
+            engine.finish();
+            return fanout.finish();
+        } finally {
+            pool.release(raw);
+        }
+    }
+    //</editor-fold>
+
+    private Fanout newFanout() {
+        for (var digest : Digests) {
+            digest.reset();
+        }
+        return Concurrent ? new ConcurrentFanout() : new Fanout();
+    }
+
+    /**
+     * @return the digests as hexadecimal strings keyed by algorithm.
+     */
+    private Map<String, String> results() {
+        var results = new LinkedHashMap<String, String>(Digests.length * 2);
+        for (var digest : Digests) {
+            results.put(digest.getAlgorithm(), ByteUtils.toHexString(digest.digest(), false));
+        }
+        return results;
+    }
+
+    /**
+     * hands the data to the digests. this one updates them sequentially on
+     * the caller thread.
+     */
+    private class Fanout implements AutoCloseable {
+
+        void write(ByteBuffer data) throws IOException {
+            var position = data.position();
+            for (var digest : Digests) {
+                digest.update(data.position(position));
+            }
+        }
+
+        Map<String, String> finish() throws IOException {
+            return results();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * a shared and reference counted chunk.
+     */
+    private static final class Chunk {
+
+        private final ByteBuffer Data;
+        private final AtomicInteger References;
+
+        private Chunk(ByteBuffer data, int references) {
+            Data = data;
+            References = new AtomicInteger(references);
+        }
+    }
+
+    /**
+     * hands the data to a thread per digest. the data is accumulated into
+     * pooled chunks. a full chunk is published to every digest thread and
+     * returned to the pool once all of them processed it.
+     */
+    private final class ConcurrentFanout extends Fanout {
+
+        /**
+         * marks the end of the data.
+         */
+        private static final Chunk END = new Chunk(ByteBuffer.allocate(0), 0);
+        private final Semaphore InFlight = new Semaphore(RingSize);
+        private final LinkedBlockingQueue<Chunk>[] Queues;
+        private final Thread[] Workers;
+        private volatile Throwable failure;
+        private ByteBuffer current;
+        private boolean finished = false;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private ConcurrentFanout() {
+            Queues = new LinkedBlockingQueue[Digests.length];
+            Workers = new Thread[Digests.length];
+            for (int i = 0; i < Digests.length; i++) {
+                final var queue = Queues[i] = new LinkedBlockingQueue<>();
+                final var digest = Digests[i];
+                Workers[i] = Thread.ofVirtual().name("digest-" + digest.getAlgorithm())
+                        .start(() -> work(queue, digest));
+            }
+        }
+
+        private void work(LinkedBlockingQueue<Chunk> queue, MessageDigest digest) {
+            try {
+                Chunk chunk;
+                while ((chunk = queue.take()) != END) {
+                    try {
+                        if (failure == null) {
+                            digest.update(chunk.Data.duplicate());
+                        }
+                    } catch (RuntimeException ex) {
+                        failure = ex;
+                    } finally {
+                        releaseChunk(chunk);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                failure = ex;
+            }
+        }
+
+        private void releaseChunk(Chunk chunk) {
+            if (chunk.References.decrementAndGet() == 0) {
+                BufferPool.shared().release(chunk.Data);
+                InFlight.release();
+            }
+        }
+
+        @Override
+        void write(ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                if (current == null) {
+                    try {
+                        InFlight.acquire();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("interrupted while waiting for the digests", ex);
+                    }
+                    current = BufferPool.shared().acquire(CHUNK_SIZE, false);
+                }
+                var count = Math.min(data.remaining(), current.remaining());
+                current.put(current.position(), data, data.position(), count);
+                current.position(current.position() + count);
+                data.position(data.position() + count);
+                if (!current.hasRemaining()) {
+                    publish();
+                }
+            }
+            checkFailure();
+        }
+
+        private void publish() {
+            var chunk = new Chunk(current.flip(), Queues.length);
+            current = null;
+            for (var queue : Queues) {
+                queue.add(chunk);
+            }
+        }
+
+        @Override
+        Map<String, String> finish() throws IOException {
+            if (current != null) {
+                publish();
+            }
+            stop();
+            checkFailure();
+            return results();
+        }
+
+        /**
+         * signals the end to the workers and waits for them.
+         */
+        private void stop() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            for (var queue : Queues) {
+                queue.add(END);
+            }
+            try {
+                for (var worker : Workers) {
+                    worker.join();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for the digests", ex);
+            }
+        }
+
+        private void checkFailure() throws IOException {
+            if (failure != null) {
+                throw new IOException("a digest failed", failure);
+            }
+        }
+
+        /**
+         * stops the workers if the digest did not finish. (due a error)
+         */
+        @Override
+        public void close() {
+            if (current != null) {
+                BufferPool.shared().release(current);
+                current = null;
+                InFlight.release();
+            }
+            if (!finished) {
+                try {
+                    stop();
+                } catch (IOException ex) {
+                    //already failing. the interrupt flag is kept.
+                }
+            }
+        }
+    }
+}
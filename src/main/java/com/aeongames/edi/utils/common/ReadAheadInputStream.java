@@ -0,0 +1,316 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Objects;
+import java.time.Duration;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Level;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import com.aeongames.edi.utils.error.LoggingHelper;
+
+/**
+ * a stream that reads its source ahead on a (virtual) thread. the data read
+ * is kept on a bounded ring of pooled chunks until consumed. thus while the
+ * consumer decodes a chunk (for example thru {@link SkipInputStream} or
+ * {@link Base64DigestEngine}) the next ones are being read. the wait for a
+ * slow or bursty source overlaps the CPU work instead of adding to it.
+ * <br>
+ * once the ring is full the reader waits for the consumer. thus the memory
+ * used is at most {@code depth * chunkSize}. a error of the source is thrown
+ * to the consumer once the data read before it is consumed. (and by every
+ * read after it) closing this stream stops the reader, closes the source and
+ * returns the chunks to the pool.
+ * <br>
+ * this stream is meant to be used by a single consumer thread.
+ *
+ * @author Eduardo Vindas
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    /**
+     * the default size of each chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    /**
+     * the default amount of chunks on the ring.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+    private static final String LOGGERNAME = "CommonUtilsLogger";
+    /**
+     * how long {@link #close()} waits for the reader to stop.
+     */
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * a chunk of the ring.
+     */
+    private static final class Chunk {
+
+        private final byte[] Data;
+        private int position, limit;
+
+        private Chunk(byte[] data) {
+            Data = data;
+        }
+    }
+
+    /**
+     * marks the end of the data. (or the reader failure)
+     */
+    private static final Chunk END = new Chunk(new byte[0]);
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    private final InputStream Source;
+    /**
+     * the chunks read and not yet consumed. on reading order.
+     */
+    private final ArrayBlockingQueue<Chunk> Filled;
+    /**
+     * the chunks consumed. ready to be filled again.
+     */
+    private final ArrayBlockingQueue<Chunk> Free;
+    private final Thread Reader;
+    private final byte[] single = new byte[1];
+    /**
+     * the error of the reader. thrown once the data before it is consumed.
+     */
+    private volatile Throwable failure;
+    private volatile boolean closed = false;
+    /**
+     * the chunk being consumed.
+     */
+    private Chunk current;
+    private boolean eof = false;
+    //</editor-fold>
+
+    /**
+     * creates a read ahead stream with the default chunk size and depth.
+     *
+     * @param source the stream to read ahead.
+     */
+    public ReadAheadInputStream(InputStream source) {
+        this(source, DEFAULT_CHUNK_SIZE, DEFAULT_DEPTH);
+    }
+
+    /**
+     * creates a read ahead stream. the reader starts right away.
+     *
+     * @param source the stream to read ahead.
+     * @param chunkSize the size of each chunk.
+     * @param depth the amount of chunks on the ring.
+     */
+    public ReadAheadInputStream(InputStream source, int chunkSize, int depth) {
+        Source = Objects.requireNonNull(source, "the source cannot be null");
+        if (chunkSize <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("the chunk size and depth must be positive");
+        }
+        //room for all the chunks plus the end mark. thus adding never blocks.
+        Filled = new ArrayBlockingQueue<>(depth + 1);
+        Free = new ArrayBlockingQueue<>(depth);
+        var pool = BufferPool.shared();
+        for (int i = 0; i < depth; i++) {
+            Free.add(new Chunk(pool.acquireArray(chunkSize)));
+        }
+        Reader = Thread.ofVirtual().name("read-ahead").start(this::readAhead);
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Reader">
+    /**
+     * reads the source into the free chunks until the end, a error or the
+     * stream is closed.
+     */
+    private void readAhead() {
+        Chunk chunk = null;
+        try {
+            while (!closed) {
+                chunk = Free.take();
+                //a single read per chunk. hand over whatever is available.
+                var read = Source.read(chunk.Data, 0, chunk.Data.length);
+                if (read < 0) {
+                    break;
+                }
+                chunk.position = 0;
+                chunk.limit = read;
+                Filled.add(chunk);
+                chunk = null;
+            }
+        } catch (InterruptedException ex) {
+            //closed.
+        } catch (Throwable ex) {
+            //any failure. (an Error included) the consumer must not see a clean end.
+            if (!closed) {
+                failure = ex;
+            }
+        } finally {
+            if (chunk != null) {
+                Free.add(chunk);
+            }
+            Filled.add(END);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Read">
+    @Override
+    public int read() throws IOException {
+        var read = read(single, 0, 1);
+        return read <= 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        var count = Math.min(len, current.limit - current.position);
+        System.arraycopy(current.Data, current.position, b, off, count);
+        current.position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        long skipped = 0;
+        while (skipped < n && nextChunk()) {
+            var count = (int) Math.min(n - skipped, current.limit - current.position);
+            current.position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return the bytes of the current chunk. (the bytes that can be read
+     * without waiting for the reader)
+     */
+    @Override
+    public int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        return current == null ? 0 : current.limit - current.position;
+    }
+
+    /**
+     * makes sure the current chunk has data. waiting for the reader if
+     * needed.
+     *
+     * @return false at the end of the data.
+     */
+    private boolean nextChunk() throws IOException {
+        while (current == null || current.position == current.limit) {
+            if (current != null) {
+                Free.add(current);
+                current = null;
+            }
+            if (eof) {
+                //a failed transfer must not look complete to a caller that retries.
+                throwFailure();
+                return false;
+            }
+            Chunk next;
+            try {
+                next = Filled.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for the read ahead");
+            }
+            if (next == END) {
+                eof = true;
+                throwFailure();
+                return false;
+            }
+            current = next;
+        }
+        return true;
+    }
+    /**
+     * throws the error of the reader. (if any) on every call.
+     */
+    private void throwFailure() throws IOException {
+        var error = failure;
+        if (error != null) {
+            throw new IOException("the read ahead failed: " + error.getMessage(), error);
+        }
+    }
+    //</editor-fold>
+
+    /**
+     * stops the reader, closes the source and returns the chunks to the pool.
+     * waits up to 5 seconds for the reader. if it is still blocked on the
+     * source after that it is abandoned. (and its chunks are left to the GC)
+     *
+     * @throws IOException if the source fails to close.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Reader.interrupt();
+        try {
+            //unblocks the reader if it is waiting for the source.
+            Source.close();
+        } finally {
+            releaseChunks();
+        }
+    }
+
+    /**
+     * waits for the reader to stop and returns the chunks to the pool. if the
+     * reader does not stop in time the chunks are left to the GC.
+     */
+    private void releaseChunks() {
+        try {
+            //a source that ignores close and interrupt must not hang the caller.
+            if (!Reader.join(Duration.ofMillis(CLOSE_TIMEOUT_MILLIS))) {
+                LoggingHelper.getLogger(LOGGERNAME).log(Level.WARNING,
+                        "the read ahead did not stop. the source ignores close. the chunks are not pooled");
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LoggingHelper.getLogger(LOGGERNAME).log(Level.WARNING,
+                    "interrupted while waiting for the read ahead to stop. the chunks are not pooled", ex);
+            return;
+        }
+        var pool = BufferPool.shared();
+        if (current != null) {
+            pool.release(current.Data);
+            current = null;
+        }
+        for (var chunk : Free) {
+            pool.release(chunk.Data);
+        }
+        for (var chunk : Filled) {
+            if (chunk != END) {
+                pool.release(chunk.Data);
+            }
+        }
+        Free.clear();
+        Filled.clear();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * the channel counterpart of {@link SkipInputStream}. reads data encoded with
+ * code units of several bytes (UTF-16, UTF-32) and keeps only the significant
+ * (low) byte of each unit. thus ASCII text (for example Base64) encoded as
+ * UTF-16 or UTF-32 is read as if it were ASCII.
+ * <br>
+ * the channel keeps a single staging buffer (borrowed from the
+ * {@link BufferPool#shared() shared pool} and returned on close). a code unit
+ * split between two reads of the source is carried to the next read. the
+ * significant bytes are gathered 8 bytes at the time using SWAR (SIMD within
+ * a register) operations. a trailing incomplete code unit at the end of the
+ * source is discarded.
+ *
+ * @author Eduardo Vindas
+ */
+public class SkipByteChannel implements ReadableByteChannel {
+
+    /**
+     * the size of the staging buffer.
+     */
+    private static final int STAGING_SIZE = 64 * 1024;
+    private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+    private static final long EVEN_SHORTS = 0x0000FFFF0000FFFFL;
+    private static final long EVEN_INTS = 0x000000FF000000FFL;
+
+    /**
+     * the source channel. null if reading from a stream.
+     */
+    private final ReadableByteChannel SourceChannel;
+    /**
+     * the source stream. null if reading from a channel.
+     */
+    private final InputStream SourceStream;
+    /**
+     * bytes per code unit
+     */
+    private final int Stride;
+    /**
+     * the index of the significant byte within a code unit.
+     */
+    private final int Offset;
+    /**
+     * the data read and not yet gathered. always on "read" mode (flipped).
+     */
+    private ByteBuffer Staging;
+    private boolean eof = false;
+
+    /**
+     * creates a channel that narrows the data of the provided channel.
+     *
+     * @param source the channel to read
+     * @param charset the encoding of the data.
+     */
+    public SkipByteChannel(ReadableByteChannel source, Charset charset) {
+        this(source, strideOf(charset), isBigEndian(charset));
+    }
+
+    /**
+     * creates a channel that narrows the data of the provided channel.
+     *
+     * @param source the channel to read
+     * @param stride the amount of bytes per code unit (1, 2, 4...)
+     * @param bigEndian whenever the significant byte is the last of each code
+     * unit.
+     */
+    public SkipByteChannel(ReadableByteChannel source, int stride, boolean bigEndian) {
+        this(Objects.requireNonNull(source, "the source cannot be null"), null, stride, bigEndian);
+    }
+
+    /**
+     * creates a channel that narrows the data of the provided stream. the
+     * stream is read directly into the staging buffer.
+     *
+     * @param source the stream to read
+     * @param charset the encoding of the data.
+     */
+    public SkipByteChannel(InputStream source, Charset charset) {
+        this(null, Objects.requireNonNull(source, "the source cannot be null"), strideOf(charset), isBigEndian(charset));
+    }
+
+    private SkipByteChannel(ReadableByteChannel channel, InputStream stream, int stride, boolean bigEndian) {
+        if (stride <= 0) {
+            throw new IllegalArgumentException("the stride must be positive");
+        }
+        SourceChannel = channel;
+        SourceStream = stream;
+        Stride = stride;
+        Offset = bigEndian ? stride - 1 : 0;
+        Staging = BufferPool.shared().acquire(STAGING_SIZE, false).flip();
+    }
+
+    /**
+     * the amount of bytes per code unit for the charset.
+     *
+     * @param charset the charset
+     * @return the bytes per code unit.
+     */
+    static int strideOf(Charset charset) {
+        return CharsetCompatibilityChecker.profileOf(charset).codeUnitWidth();
+    }
+
+    /**
+     * whenever the charset stores the significant byte last.
+     *
+     * @param charset the charset
+     * @return true if big endian.
+     */
+    static boolean isBigEndian(Charset charset) {
+        return CharsetCompatibilityChecker.profileOf(charset).bigEndian();
+    }
+
+    /**
+     * reads the significant bytes into {@code dst}. returns as soon as some
+     * data was produced. thus it only blocks if no code unit is buffered.
+     *
+     * @param dst the buffer to fill.
+     * @return the amount of bytes produced. -1 at the end of the source. or 0
+     * if {@code dst} is full or a non blocking source has no data.
+     * @throws IOException if the source fails.
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (Staging == null) {
+            throw new ClosedChannelException();
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        while (true) {
+            if (Staging.remaining() >= Stride) {
+                return gather(Staging, dst, Stride, Offset);
+            }
+            if (eof) {
+                return -1;
+            }
+            //keep the carried bytes and read only what dst can take.
+            Staging.compact();
+            var wanted = Math.min((long) Staging.capacity(), Staging.position() + (long) dst.remaining() * Stride);
+            Staging.limit((int) Math.max(wanted, Staging.position() + 1L));
+            var read = fill();
+            Staging.flip();
+            if (read < 0) {
+                eof = true;
+            } else if (read == 0) {
+                return 0;
+            }
+        }
+    }
+
+    private int fill() throws IOException {
+        if (SourceChannel != null) {
+            return SourceChannel.read(Staging);
+        }
+        var read = SourceStream.read(Staging.array(), Staging.arrayOffset() + Staging.position(), Staging.remaining());
+        if (read > 0) {
+            Staging.position(Staging.position() + read);
+        }
+        return read;
+    }
+
+    /**
+     * @return the amount of bytes read from the source and not yet gathered.
+     */
+    int buffered() {
+        return Staging == null ? 0 : Staging.remaining();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return Staging != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (Staging == null) {
+            return;
+        }
+        BufferPool.shared().release(Staging);
+        Staging = null;
+        if (SourceChannel != null) {
+            SourceChannel.close();
+        } else {
+            SourceStream.close();
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Gather">
+    /**
+     * copies the byte at {@code offset} of each code unit of {@code stride}
+     * bytes from {@code src} into {@code dst}. as many units as fit into
+     * {@code dst} are processed. both buffers positions are advanced.
+     *
+     * @param src the encoded data
+     * @param dst the destination of the significant bytes
+     * @param stride the bytes per code unit
+     * @param offset the index of the significant byte within the unit.
+     * @return the amount of bytes written into dst
+     */
+    static int gather(ByteBuffer src, ByteBuffer dst, int stride, int offset) {
+        final int units = Math.min(src.remaining() / stride, dst.remaining());
+        int sp = src.position(), dp = dst.position();
+        final int dend = dp + units;
+        if (stride == 1) {
+            dst.put(dp, src, sp, units);
+            src.position(sp + units);
+            dst.position(dend);
+            return units;
+        }
+        if (stride == 2) {
+            final int shift = (1 - offset) * 8;
+            for (; dp + Integer.BYTES <= dend; sp += Long.BYTES, dp += Integer.BYTES) {
+                BulkCodec.INT_BUFFER.set(dst, dp, narrow2((long) BulkCodec.LONG_BUFFER.get(src, sp) >>> shift));
+            }
+        } else if (stride == 4) {
+            final int shift = (3 - offset) * 8;
+            for (; dp + Integer.BYTES <= dend; sp += 2 * Long.BYTES, dp += Integer.BYTES) {
+                var high = narrow4((long) BulkCodec.LONG_BUFFER.get(src, sp) >>> shift);
+                var low = narrow4((long) BulkCodec.LONG_BUFFER.get(src, sp + Long.BYTES) >>> shift);
+                BulkCodec.INT_BUFFER.set(dst, dp, high << 16 | low);
+            }
+        }
+        for (; dp < dend; sp += stride, dp++) {
+            dst.put(dp, src.get(sp + offset));
+        }
+        src.position(sp);
+        dst.position(dend);
+        return units;
+    }
+
+    /**
+     * packs the low byte of each of the 4 shorts of the value into a int.
+     */
+    private static int narrow2(long value) {
+        value &= EVEN_BYTES;
+        value = (value | value >>> 8) & EVEN_SHORTS;
+        return (int) (value | value >>> 16);
+    }
+
+    /**
+     * packs the low byte of each of the 2 ints of the value into a short.
+     */
+    private static int narrow4(long value) {
+        value &= EVEN_INTS;
+        return (int) (value | value >>> 24) & 0xFFFF;
+    }
+    //</editor-fold>
+}
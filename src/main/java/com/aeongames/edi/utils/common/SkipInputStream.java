@@ -14,10 +14,10 @@ package com.aeongames.edi.utils.common;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
-import java.util.Base64;
 import java.util.Objects;
 
 /**
@@ -30,14 +30,6 @@ import java.util.Objects;
  */
 public class SkipInputStream extends InputStream {
 
-    /**
-     * the character set to assume we will be working with.
-     */
-    private final transient Charset DataCharset;
-    /**
-     * order of bytes
-     */
-    private final transient boolean isbigEdian;
     /**
      * bytes per character
      */
@@ -46,6 +38,11 @@ public class SkipInputStream extends InputStream {
      * the underline stream to handle.
      */
     private final InputStream wrappedstream;
+    /**
+     * the channel that reads and narrows the wrapped stream.
+     */
+    private final SkipByteChannel Channel;
+    private final byte[] single = new byte[1];
 
     /**
      * a static function that can be called to Wrap on several other input streams
@@ -58,52 +55,42 @@ public class SkipInputStream extends InputStream {
      * @return DigestInputStream that wraps a base64Stream that wraps the SkipInputStream that wraps the toWrap stream
      */
     public static final DigestInputStream getWrappedStream(InputStream toWrap, Charset charEncoding, MessageDigest diggester) {
-        var base64Decoded = Base64.getDecoder()
-                .wrap(new SkipInputStream(toWrap, charEncoding));
+        //the three layers are fused into a single one. same result. see Base64DigestEngine
         //diggester.reset();//the caller need to ensure this 
-        DigestInputStream digestStream = new DigestInputStream(base64Decoded, diggester);
-        //digestStream.on(true);//the caller need to ensure this 
-        return digestStream;
+        return Base64DigestEngine.wrap(toWrap, charEncoding, diggester);
     }
 
     public SkipInputStream(InputStream IS, Charset charset) {
         wrappedstream = IS;
-        BytesperData = (int) Math.floor(charset.newEncoder().averageBytesPerChar());
-        DataCharset = charset;
-        isbigEdian = CharsetCompatibilityChecker.RemoveBOM(DataCharset, String.valueOf('A').getBytes(charset));
+        BytesperData = SkipByteChannel.strideOf(charset);
+        Channel = new SkipByteChannel(IS, charset);
     }
 
     @Override
     public int read() throws IOException {
-        // the minimal read we do is 1 byte.
-        // but to do so we need to read BytesperData
-        // to gather it.
-        // to gather the byte we desire we need to either read the first one
-        // or read the last one (due Edianess)
-        // to do so efficiently we read a single byte or skipping and then reading
-        if (isbigEdian) {
-            wrappedstream.skip(BytesperData - 1);
-        }
-        var data = wrappedstream.read();
-        if (!isbigEdian) {
-            wrappedstream.skip(BytesperData - 1);
-        }
-        return data;
+        var read = read(single, 0, 1);
+        return read <= 0 ? -1 : single[0] & 0xFF;
     }
 
     @Override
     public int available() throws IOException {
-        return wrappedstream.available();
+        return (Channel.buffered() + wrappedstream.available()) / BytesperData;
     }
 
     @Override
     public void close() throws IOException {
-        wrappedstream.close();
+        Channel.close();
     }
 
+    /**
+     * the data is read ahead from the wrapped stream. thus mark and reset are
+     * not supported.
+     *
+     * @return false
+     */
     @Override
     public boolean markSupported() {
-        return wrappedstream.markSupported();
+        return false;
     }
 
     /**
@@ -118,33 +105,23 @@ public class SkipInputStream extends InputStream {
         throw new CloneNotSupportedException("not allowed");
     }
 
-    @Override
-    public void mark(int readlimit) {
-        wrappedstream.mark(readlimit);
-    }
-
     @Override
     public void reset() throws IOException {
-        wrappedstream.reset();
+        throw new IOException("mark/reset not supported");
     }
 
+    /**
+     * reads the significant bytes into the array. a code unit split between
+     * reads of the wrapped stream is carried to the next call.
+     *
+     * @return the amount of bytes produced or -1 at the end of the stream.
+     */
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
         Objects.checkFromIndexSize(off, len, b.length);
-        byte Buffer[] = new byte[len * BytesperData];
-        var results = wrappedstream.read(Buffer);
-        if (results == -1) {
-            return results;
-        }
-        for (int index = 0; index < results; index += BytesperData) {
-            var offset = isbigEdian ? BytesperData - 1 : 0;
-            b[off++] = Buffer[index + offset];
+        if (len == 0) {
+            return 0;
         }
-        return results;
-    }
-
-    @Override
-    public long skip(long n) throws IOException {
-        return wrappedstream.skip(BytesperData * n);
+        return Channel.read(ByteBuffer.wrap(b, off, len));
     }
 }
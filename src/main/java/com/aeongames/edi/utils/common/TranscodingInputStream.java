@@ -0,0 +1,348 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.channels.Channels;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.CodingErrorAction;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * a stream that reads text encoded on a charset and provides it encoded on
+ * other (by default UTF-8). unlike {@link SkipInputStream} any text is
+ * supported (not only ASCII) and unlike decoding into a {@code String} the
+ * memory used is constant regardless of the size of the text.
+ * <br>
+ * the decoder, the encoder and the buffers between them are created once per
+ * stream and reused for each read. a Byte Order Mark at the start of the data
+ * is detected (see {@link CharsetCompatibilityChecker#RemoveBOM(Charset, byte[])}),
+ * used to pick the byte order for UTF-16 and UTF-32 and removed from the
+ * output.
+ * <br>
+ * runs of ASCII text skip the decoder and encoder: if the target is ASCII
+ * compatible the significant byte of each code unit is the encoded output. so
+ * those runs are narrowed (see {@link SkipByteChannel}) straight into the
+ * output. malformed or unmappable input is replaced as
+ * {@link String#String(byte[], Charset)} does.
+ *
+ * @author Eduardo Vindas
+ */
+public class TranscodingInputStream extends InputStream {
+
+    private static final int RAW_SIZE = 16 * 1024;
+    private static final int CHAR_SIZE = 8 * 1024;
+    private static final int OUT_SIZE = 32 * 1024;
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    private final InputStream Source;
+    private final Charset SourceCharset;
+    private final Charset TargetCharset;
+    private final CharsetEncoder Encoder;
+    private CharsetDecoder Decoder;
+    /**
+     * the bytes read and not yet decoded. on "read" mode.
+     */
+    private final ByteBuffer Raw;
+    /**
+     * the chars decoded and not yet encoded. on "write" mode.
+     */
+    private final CharBuffer Chars;
+    /**
+     * the bytes encoded and not yet read. on "read" mode.
+     */
+    private final ByteBuffer Out;
+    private final byte[] single = new byte[1];
+    /**
+     * the code unit layout for the ASCII fast path. stride 0 if the fast path
+     * is not possible.
+     */
+    private int Stride;
+    private int Offset;
+    private long AsciiMask;
+    private boolean headerRead = false;
+    private boolean eof = false, decoderDone = false, done = false, closed = false;
+    //</editor-fold>
+
+    /**
+     * creates a stream that transcodes into UTF-8
+     *
+     * @param source the stream to read
+     * @param sourceCharset the encoding of the source.
+     */
+    public TranscodingInputStream(InputStream source, Charset sourceCharset) {
+        this(source, sourceCharset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * creates a stream that transcodes from and into the provided charsets.
+     *
+     * @param source the stream to read
+     * @param sourceCharset the encoding of the source.
+     * @param targetCharset the encoding to provide.
+     */
+    public TranscodingInputStream(InputStream source, Charset sourceCharset, Charset targetCharset) {
+        Source = Objects.requireNonNull(source, "the source cannot be null");
+        SourceCharset = Objects.requireNonNull(sourceCharset, "the source charset cannot be null");
+        TargetCharset = Objects.requireNonNull(targetCharset, "the target charset cannot be null");
+        Encoder = targetCharset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        var pool = BufferPool.shared();
+        Raw = pool.acquire(RAW_SIZE, false).flip();
+        Out = pool.acquire(OUT_SIZE, false).flip();
+        Chars = CharBuffer.allocate(CHAR_SIZE);
+    }
+
+    /**
+     * @return a channel that reads this stream. closing the channel closes
+     * this stream.
+     */
+    public ReadableByteChannel asChannel() {
+        return Channels.newChannel(this);
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Read">
+    @Override
+    public int read() throws IOException {
+        var read = read(single, 0, 1);
+        return read <= 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (!Out.hasRemaining()) {
+            if (done) {
+                return -1;
+            }
+            produce();
+        }
+        var count = Math.min(len, Out.remaining());
+        Out.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return Out.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        BufferPool.shared().release(Raw);
+        BufferPool.shared().release(Out);
+        Source.close();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Transcoding">
+    /**
+     * fills the output buffer with at the least a byte or reaches the end.
+     */
+    private void produce() throws IOException {
+        Out.clear();
+        try {
+            if (!headerRead) {
+                readHeader();
+            }
+            while (Out.position() == 0 && !done) {
+                if (!eof) {
+                    fill();
+                }
+                //once the end is seen the coders are only finished. a coder
+                //that was told the input ended cannot go back to coding.
+                if (eof) {
+                    done = finish();
+                } else {
+                    transcode();
+                }
+            }
+        } finally {
+            Out.flip();
+        }
+    }
+
+    /**
+     * reads more data into the raw buffer. (if there is room)
+     */
+    private void fill() throws IOException {
+        Raw.compact();
+        try {
+            if (!Raw.hasRemaining()) {
+                return;
+            }
+            var read = Source.read(Raw.array(), Raw.arrayOffset() + Raw.position(), Raw.remaining());
+            if (read < 0) {
+                eof = true;
+            } else {
+                Raw.position(Raw.position() + read);
+            }
+        } finally {
+            Raw.flip();
+        }
+    }
+
+    /**
+     * reads the first bytes to detect a BOM. then picks the decoder and the
+     * ASCII fast path layout.
+     */
+    private void readHeader() throws IOException {
+        headerRead = true;
+        while (Raw.remaining() < 4 && !eof) {
+            fill();
+        }
+        var name = SourceCharset.name().toUpperCase(Locale.ROOT);
+        var header = new byte[Math.min(4, Raw.remaining())];
+        Raw.get(Raw.position(), header);
+        var original = header.clone();
+        var decoding = SourceCharset;
+        int bomLength = 0;
+        if (name.startsWith("UTF-16") || name.startsWith("UTF-32")) {
+            Stride = name.startsWith("UTF-16") ? 2 : 4;
+            var bigEndian = CharsetCompatibilityChecker.RemoveBOM(SourceCharset, header);
+            if (!Arrays.equals(original, header)) {
+                //a BOM was found (and zeroed).
+                bomLength = Stride;
+            }
+            decoding = Charset.forName((Stride == 2 ? "UTF-16" : "UTF-32") + (bigEndian ? "BE" : "LE"));
+            Offset = bigEndian ? Stride - 1 : 0;
+        } else if (CharsetCompatibilityChecker.isAsciiByteCompatible(SourceCharset)) {
+            Stride = 1;
+            Offset = 0;
+            if (name.equals("UTF-8") && header.length >= 3
+                    && (header[0] & 0xFF) == 0xEF && (header[1] & 0xFF) == 0xBB && (header[2] & 0xFF) == 0xBF) {
+                bomLength = 3;
+            }
+        }
+        if (Stride > 0 && !CharsetCompatibilityChecker.isAsciiByteCompatible(TargetCharset)) {
+            Stride = 0;
+        }
+        if (Stride > 0) {
+            //all the bits but the 7 low bits of the significant byte must be 0
+            long mask = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                mask = mask << 8 | (i % Stride == Offset ? 0x80 : 0xFF);
+            }
+            AsciiMask = mask;
+        }
+        Raw.position(Raw.position() + Math.min(bomLength, Raw.remaining()));
+        Decoder = decoding.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * transcodes the raw data. stops when the output is full or the raw data
+     * is consumed (except a incomplete character).
+     */
+    private void transcode() {
+        while (Out.hasRemaining()) {
+            if (Stride > 0 && Chars.position() == 0) {
+                var units = Math.min(asciiPrefix(), Out.remaining());
+                if (units > 0) {
+                    var limit = Raw.limit();
+                    Raw.limit(Raw.position() + units * Stride);
+                    SkipByteChannel.gather(Raw, Out, Stride, Offset);
+                    Raw.limit(limit);
+                    continue;
+                }
+            }
+            var decoded = Decoder.decode(Raw, Chars, false);
+            if (!encodeChars(false) || decoded.isUnderflow()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * transcodes all the remaining data and flushes the coders. called (maybe
+     * several times if the output fills up) once the end of the source is
+     * reached. the decoder is finished first and from then on only the
+     * encoder is drained.
+     *
+     * @return true if all the data was written into the output
+     */
+    private boolean finish() {
+        if (!decoderDone) {
+            var decoded = Decoder.decode(Raw, Chars, true);
+            if (decoded.isUnderflow()) {
+                decoded = Decoder.flush(Chars);
+                decoderDone = decoded.isUnderflow();
+            }
+            encodeChars(false);
+            if (!decoderDone) {
+                return false;
+            }
+        }
+        return encodeChars(true) && !Encoder.flush(Out).isOverflow();
+    }
+
+    /**
+     * encodes the pending chars into the output.
+     *
+     * @return false if the output is full.
+     */
+    private boolean encodeChars(boolean endOfInput) {
+        Chars.flip();
+        CoderResult result;
+        try {
+            result = Encoder.encode(Chars, Out, endOfInput);
+        } finally {
+            Chars.compact();
+        }
+        return !result.isOverflow();
+    }
+
+    /**
+     * @return the amount of ASCII code units at the start of the raw data.
+     */
+    private int asciiPrefix() {
+        final int start = Raw.position();
+        final int end = start + Raw.remaining() / Stride * Stride;
+        int index = start;
+        while (index + Long.BYTES <= end && ((long) BulkCodec.LONG_BUFFER.get(Raw, index) & AsciiMask) == 0) {
+            index += Long.BYTES;
+        }
+        units:
+        for (; index + Stride <= end; index += Stride) {
+            for (int i = 0; i < Stride; i++) {
+                var value = Raw.get(index + i) & 0xFF;
+                if (i == Offset ? value >= 0x80 : value != 0) {
+                    break units;
+                }
+            }
+        }
+        return (index - start) / Stride;
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,473 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.common;
+
+import java.util.Objects;
+import java.nio.ByteOrder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+import java.lang.invoke.VarHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * a pure Java implementation of the xxHash64 non cryptographic hash. it is
+ * several times faster than a {@link java.security.MessageDigest} and thus is
+ * the fingerprint to use for content identity (dedup, cache keys) where a
+ * collision is not a security concern. the values match the reference
+ * implementation (XXH64).
+ * <br>
+ * a identity that is trusted across sessions or taken from untrusted content
+ * (for example the keys of the datatransfer PayloadStore) needs a
+ * cryptographic digest. there this hash is the checksum of the data rather
+ * than its key.
+ * <br>
+ * the data can be hashed at once ({@link #hash(byte[], int, int, long)},
+ * {@link #hash(ByteBuffer, long)}) or by parts as a {@link Checksum}.
+ * <br>
+ * on the bounded prefix mode only the first bytes are hashed and the total
+ * length is mixed into the value. thus huge payloads are identified by their
+ * start and size. if the data fits on the prefix the value is the plain
+ * xxHash64.
+ *
+ * @author Eduardo Vindas
+ */
+public final class XXHash64 implements Checksum {
+
+    /**
+     * the seed used when none is provided.
+     */
+    public static final long DEFAULT_SEED = 0;
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+    /**
+     * the size of the chunks read by {@link #hash(InputStream, long)}
+     */
+    private static final int READ_SIZE = 64 * 1024;
+    private static final VarHandle LONG_ARRAY = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_ARRAY = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_BUFFER = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_BUFFER = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    private final long Seed;
+    /**
+     * the maximum amount of bytes to hash.
+     */
+    private final long PrefixLimit;
+    /**
+     * the bytes that do not complete a stripe yet.
+     */
+    private final byte[] Pending = new byte[STRIPE];
+    private int pendingLength;
+    private long v1, v2, v3, v4;
+    /**
+     * the amount of bytes hashed. (up to the prefix limit)
+     */
+    private long hashed;
+    /**
+     * the amount of bytes provided.
+     */
+    private long total;
+    //</editor-fold>
+
+    /**
+     * creates a hash with the default seed.
+     */
+    public XXHash64() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * creates a hash with the provided seed.
+     *
+     * @param seed the seed
+     */
+    public XXHash64(long seed) {
+        this(seed, Long.MAX_VALUE);
+    }
+
+    /**
+     * creates a hash on the bounded prefix mode. see
+     * {@link #hashPrefix(byte[], int, int, int, long)}
+     *
+     * @param seed the seed
+     * @param prefixLimit the maximum amount of bytes to hash.
+     */
+    public XXHash64(long seed, long prefixLimit) {
+        if (prefixLimit < 0) {
+            throw new IllegalArgumentException("the prefix limit cannot be negative");
+        }
+        Seed = seed;
+        PrefixLimit = prefixLimit;
+        reset();
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Checksum">
+    @Override
+    public void update(int b) {
+        total++;
+        if (hashed >= PrefixLimit) {
+            return;
+        }
+        hashed++;
+        Pending[pendingLength++] = (byte) b;
+        if (pendingLength == STRIPE) {
+            stripes(Pending, 0, STRIPE);
+            pendingLength = 0;
+        }
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        total += len;
+        len = (int) Math.min(len, PrefixLimit - hashed);
+        hashed += len;
+        if (pendingLength + len < STRIPE) {
+            System.arraycopy(b, off, Pending, pendingLength, len);
+            pendingLength += len;
+            return;
+        }
+        final int end = off + len;
+        if (pendingLength > 0) {
+            var fill = STRIPE - pendingLength;
+            System.arraycopy(b, off, Pending, pendingLength, fill);
+            stripes(Pending, 0, STRIPE);
+            off += fill;
+            pendingLength = 0;
+        }
+        off = stripes(b, off, end);
+        pendingLength = end - off;
+        System.arraycopy(b, off, Pending, 0, pendingLength);
+    }
+
+    /**
+     * updates the hash with the remaining bytes of the buffer. the bytes are
+     * read in place (direct buffers are not copied). upon return the position
+     * is the limit.
+     *
+     * @param buffer the bytes to hash
+     */
+    @Override
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        var len = buffer.remaining();
+        total += len;
+        len = (int) Math.min(len, PrefixLimit - hashed);
+        hashed += len;
+        int off = buffer.position();
+        final int end = off + len;
+        if (pendingLength + len < STRIPE) {
+            buffer.get(off, Pending, pendingLength, len);
+            pendingLength += len;
+        } else {
+            if (pendingLength > 0) {
+                var fill = STRIPE - pendingLength;
+                buffer.get(off, Pending, pendingLength, fill);
+                stripes(Pending, 0, STRIPE);
+                off += fill;
+                pendingLength = 0;
+            }
+            off = stripes(buffer, off, end);
+            pendingLength = end - off;
+            buffer.get(off, Pending, 0, pendingLength);
+        }
+        buffer.position(buffer.limit());
+    }
+
+    /**
+     * @return the hash of the bytes provided so far. the hash can still be
+     * updated.
+     */
+    @Override
+    public long getValue() {
+        long h = hashed >= STRIPE ? converge(v1, v2, v3, v4) : Seed + PRIME64_5;
+        h += hashed;
+        h = avalanche(tail(h, Pending, 0, pendingLength));
+        return total > hashed ? mixLength(h, total) : h;
+    }
+
+    @Override
+    public void reset() {
+        v1 = Seed + PRIME64_1 + PRIME64_2;
+        v2 = Seed + PRIME64_2;
+        v3 = Seed;
+        v4 = Seed - PRIME64_1;
+        pendingLength = 0;
+        hashed = total = 0;
+    }
+
+    /**
+     * consumes the whole stripes of the range.
+     *
+     * @return the index after the last stripe.
+     */
+    private int stripes(byte[] data, int index, int end) {
+        long a = v1, b = v2, c = v3, d = v4;
+        for (; index <= end - STRIPE; index += STRIPE) {
+            a = round(a, (long) LONG_ARRAY.get(data, index));
+            b = round(b, (long) LONG_ARRAY.get(data, index + 8));
+            c = round(c, (long) LONG_ARRAY.get(data, index + 16));
+            d = round(d, (long) LONG_ARRAY.get(data, index + 24));
+        }
+        v1 = a;
+        v2 = b;
+        v3 = c;
+        v4 = d;
+        return index;
+    }
+
+    /**
+     * consumes the whole stripes of the range.
+     *
+     * @return the index after the last stripe.
+     */
+    private int stripes(ByteBuffer data, int index, int end) {
+        long a = v1, b = v2, c = v3, d = v4;
+        for (; index <= end - STRIPE; index += STRIPE) {
+            a = round(a, (long) LONG_BUFFER.get(data, index));
+            b = round(b, (long) LONG_BUFFER.get(data, index + 8));
+            c = round(c, (long) LONG_BUFFER.get(data, index + 16));
+            d = round(d, (long) LONG_BUFFER.get(data, index + 24));
+        }
+        v1 = a;
+        v2 = b;
+        v3 = c;
+        v4 = d;
+        return index;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="One shot">
+    /**
+     * @param data the bytes to hash
+     * @return the xxHash64 of the array with the default seed
+     */
+    public static long hash(byte[] data) {
+        return hash(data, 0, data.length, DEFAULT_SEED);
+    }
+
+    /**
+     * hashes the range.
+     *
+     * @param data the bytes to hash
+     * @param off the offset of the first byte
+     * @param len the amount of bytes
+     * @param seed the seed
+     * @return the xxHash64 of the range
+     */
+    public static long hash(byte[] data, int off, int len, long seed) {
+        Objects.checkFromIndexSize(off, len, data.length);
+        final int end = off + len;
+        int index = off;
+        long h;
+        if (len >= STRIPE) {
+            long a = seed + PRIME64_1 + PRIME64_2, b = seed + PRIME64_2, c = seed, d = seed - PRIME64_1;
+            for (; index <= end - STRIPE; index += STRIPE) {
+                a = round(a, (long) LONG_ARRAY.get(data, index));
+                b = round(b, (long) LONG_ARRAY.get(data, index + 8));
+                c = round(c, (long) LONG_ARRAY.get(data, index + 16));
+                d = round(d, (long) LONG_ARRAY.get(data, index + 24));
+            }
+            h = converge(a, b, c, d);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        h += len;
+        return avalanche(tail(h, data, index, end));
+    }
+
+    /**
+     * @param data the bytes to hash
+     * @return the xxHash64 of the remaining bytes with the default seed. the
+     * position is not changed.
+     */
+    public static long hash(ByteBuffer data) {
+        return hash(data, DEFAULT_SEED);
+    }
+
+    /**
+     * hashes the remaining bytes of the buffer. heap and direct buffers are
+     * read in place. the position is not changed.
+     *
+     * @param data the bytes to hash
+     * @param seed the seed
+     * @return the xxHash64 of the remaining bytes
+     */
+    public static long hash(ByteBuffer data, long seed) {
+        if (data.hasArray()) {
+            return hash(data.array(), data.arrayOffset() + data.position(), data.remaining(), seed);
+        }
+        final int end = data.limit();
+        int index = data.position();
+        long h;
+        if (data.remaining() >= STRIPE) {
+            long a = seed + PRIME64_1 + PRIME64_2, b = seed + PRIME64_2, c = seed, d = seed - PRIME64_1;
+            for (; index <= end - STRIPE; index += STRIPE) {
+                a = round(a, (long) LONG_BUFFER.get(data, index));
+                b = round(b, (long) LONG_BUFFER.get(data, index + 8));
+                c = round(c, (long) LONG_BUFFER.get(data, index + 16));
+                d = round(d, (long) LONG_BUFFER.get(data, index + 24));
+            }
+            h = converge(a, b, c, d);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        h += data.remaining();
+        for (; index <= end - Long.BYTES; index += Long.BYTES) {
+            h ^= round(0, (long) LONG_BUFFER.get(data, index));
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+        }
+        if (index <= end - Integer.BYTES) {
+            h ^= ((int) INT_BUFFER.get(data, index) & 0xFFFFFFFFL) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+            index += Integer.BYTES;
+        }
+        for (; index < end; index++) {
+            h ^= (data.get(index) & 0xFF) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+        }
+        return avalanche(h);
+    }
+
+    /**
+     * hashes the range on the bounded prefix mode. only the first
+     * {@code limit} bytes are hashed. if the range is longer its length is
+     * mixed into the value. thus the value is the same of a
+     * {@link #XXHash64(long, long)} updated with the range.
+     *
+     * @param data the bytes to hash
+     * @param off the offset of the first byte
+     * @param len the amount of bytes
+     * @param limit the maximum amount of bytes to hash.
+     * @param seed the seed
+     * @return the hash of the prefix and length
+     */
+    public static long hashPrefix(byte[] data, int off, int len, int limit, long seed) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("the prefix limit cannot be negative");
+        }
+        var h = hash(data, off, Math.min(len, limit), seed);
+        return len > limit ? mixLength(h, len) : h;
+    }
+
+    /**
+     * hashes the remaining bytes of the buffer on the bounded prefix mode.
+     * the position is not changed. see
+     * {@link #hashPrefix(byte[], int, int, int, long)}
+     *
+     * @param data the bytes to hash
+     * @param limit the maximum amount of bytes to hash.
+     * @param seed the seed
+     * @return the hash of the prefix and length
+     */
+    public static long hashPrefix(ByteBuffer data, int limit, long seed) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("the prefix limit cannot be negative");
+        }
+        var len = data.remaining();
+        if (len <= limit) {
+            return hash(data, seed);
+        }
+        return mixLength(hash(data.slice(data.position(), limit), seed), len);
+    }
+
+    /**
+     * reads the stream to its end and hashes its bytes.
+     *
+     * @param in the stream to read. not closed.
+     * @param seed the seed
+     * @return the xxHash64 of the bytes read.
+     * @throws IOException if the stream fails.
+     */
+    public static long hash(InputStream in, long seed) throws IOException {
+        var pool = BufferPool.shared();
+        var chunk = pool.acquireArray(READ_SIZE);
+        try {
+            var hash = new XXHash64(seed);
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                hash.update(chunk, 0, read);
+            }
+            return hash.getValue();
+        } finally {
+            pool.release(chunk);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Mixing">
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long merge(long h, long acc) {
+        h ^= round(0, acc);
+        return h * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long converge(long a, long b, long c, long d) {
+        long h = Long.rotateLeft(a, 1) + Long.rotateLeft(b, 7) + Long.rotateLeft(c, 12) + Long.rotateLeft(d, 18);
+        h = merge(h, a);
+        h = merge(h, b);
+        h = merge(h, c);
+        return merge(h, d);
+    }
+
+    /**
+     * mixes the bytes after the last stripe.
+     */
+    private static long tail(long h, byte[] data, int index, int end) {
+        for (; index <= end - Long.BYTES; index += Long.BYTES) {
+            h ^= round(0, (long) LONG_ARRAY.get(data, index));
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+        }
+        if (index <= end - Integer.BYTES) {
+            h ^= ((int) INT_ARRAY.get(data, index) & 0xFFFFFFFFL) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+            index += Integer.BYTES;
+        }
+        for (; index < end; index++) {
+            h ^= (data[index] & 0xFF) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+        }
+        return h;
+    }
+
+    private static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * mixes the total length into the hash of a prefix.
+     */
+    private static long mixLength(long h, long length) {
+        return avalanche(h ^ length * PRIME64_1);
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,61 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * a channel that reads the remaining bytes of a buffer. used to hand pooled
+ * or mapped buffers as streams (thru {@code Channels.newInputStream}) without
+ * copying them.
+ *
+ * @author Eduardo Vindas
+ */
+final class ByteBufferChannel implements ReadableByteChannel {
+
+    private final ByteBuffer Source;
+    private boolean open = true;
+
+    /**
+     * @param source the buffer to read. its position is moved as it is read.
+     */
+    ByteBufferChannel(ByteBuffer source) {
+        Source = source;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (!Source.hasRemaining()) {
+            return -1;
+        }
+        var count = Math.min(dst.remaining(), Source.remaining());
+        dst.put(dst.position(), Source, Source.position(), count);
+        dst.position(dst.position() + count);
+        Source.position(Source.position() + count);
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.nio.channels.Channels;
+import java.io.ByteArrayInputStream;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.nio.channels.ReadableByteChannel;
+import com.aeongames.edi.utils.common.BufferPool;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import com.aeongames.edi.utils.threading.StopSignalProvider;
+
+/**
+ * the implementation behind {@link StreamingFlavorProcessor}. opens the
+ * flavor as a channel and push it into the processor using direct buffers
+ * borrowed from the {@link BufferPool#shared() shared pool}.
+ *
+ * @author Eduardo Vindas
+ */
+final class ChunkPump {
+
+    private static final String LOGGERNAME = "DataTransferLogger";
+
+    private ChunkPump() {
+    }
+
+    /**
+     * opens the flavor and push its data into the processor.
+     *
+     * @param processor the processor that will receive the chunks
+     * @param flavor the flavor to stream
+     * @param stopper the stop signal to check between chunks
+     * @param transferData the transfer to read.
+     * @return true if the processor completed and handled the stream.
+     * @throws DataTransferException if the data cannot be read or the
+     * processor fails.
+     */
+    static boolean pump(StreamingFlavorProcessor processor, DataFlavor flavor,
+            StopSignalProvider stopper, Transferable transferData) throws DataTransferException {
+        stopper = Objects.requireNonNullElse(stopper, () -> false);
+        if (stopper.isStopSignalReceived()) {
+            return false;
+        }
+        Object data;
+        try {
+            data = transferData.getTransferData(flavor);
+        } catch (UnsupportedFlavorException | IOException ex) {
+            throw new DataTransferException(ex, "Unable to open the flavor stream");
+        }
+        var channel = toChannel(data);
+        if (channel == null) {
+            LoggingHelper.getLogger(LOGGERNAME).log(Level.WARNING,
+                    "the flavor representation cannot be streamed: {0}", flavor.getRepresentationClass().getName());
+            return false;
+        }
+        boolean started = false, completed = false;
+        final int size = Math.max(1, processor.getChunkSize());
+        var pool = BufferPool.shared();
+        var chunk = pool.acquire(size, true);
+        try (channel) {
+            if (!processor.startStream(flavor)) {
+                return false;
+            }
+            started = true;
+            while (!stopper.isStopSignalReceived()) {
+                chunk.clear().limit(size);
+                boolean eof = fill(channel, chunk);
+                chunk.flip();
+                if (chunk.hasRemaining() && !processor.processChunk(flavor, chunk)) {
+                    break;
+                }
+                if (eof) {
+                    completed = true;
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            throw new DataTransferException(ex, "Error reading the flavor stream");
+        } finally {
+            pool.release(chunk);
+            if (started && !completed) {
+                processor.abortStream(flavor);
+            }
+        }
+        //a stopped, declined or failed stream is not handled.
+        return completed && processor.completeStream(flavor);
+    }
+
+    /**
+     * reads from the channel until the buffer is full or the end of the
+     * stream is reached.
+     *
+     * @return true if the end of the stream was reached
+     */
+    private static boolean fill(ReadableByteChannel channel, ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining()) {
+            if (channel.read(chunk) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * adapts the representation of the transfer data into a channel.
+     *
+     * @return a channel or null if the representation is not supported.
+     */
+    private static ReadableByteChannel toChannel(Object data) {
+        if (data instanceof ReadableByteChannel channel) {
+            return channel;
+        } else if (data instanceof InputStream stream) {
+            return Channels.newChannel(stream);
+        } else if (data instanceof byte[] array) {
+            return Channels.newChannel(new ByteArrayInputStream(array));
+        } else if (data instanceof ByteBuffer buffer) {
+            return new ByteBufferChannel(buffer.duplicate());
+        }
+        return null;
+    }
+}
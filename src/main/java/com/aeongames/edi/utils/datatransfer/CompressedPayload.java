@@ -0,0 +1,353 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.zip.Inflater;
+import java.util.zip.Deflater;
+import java.nio.charset.Charset;
+import java.io.ByteArrayInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.DataFormatException;
+import com.aeongames.edi.utils.common.BufferPool;
+
+/**
+ * a immutable payload kept compressed on the heap. meant for the data
+ * retained after a transfer (histories, queues) where text and raw images
+ * take a fraction of their size once deflated.
+ * <br>
+ * the data is compressed once when the payload is created and decompressed
+ * lazily on every read. either as a stream ({@link #openStream()}) or all at
+ * once ({@link #toByteArray()}). nothing decompressed is kept by the payload.
+ * <br>
+ * data that does not compress (for example a PNG or a archive) is stored as
+ * is. thus the payload is never larger than the data. both sizes are tracked
+ * see {@link #getOriginalSize()} and {@link #getCompressedSize()}
+ *
+ * @author Eduardo Vindas
+ */
+public final class CompressedPayload {
+
+    /**
+     * the default compression level. the retained payloads favor the speed of
+     * storing over the last bytes saved.
+     */
+    public static final int DEFAULT_LEVEL = Deflater.BEST_SPEED;
+    /**
+     * the size of the chunks read from streams and inflated.
+     */
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    /**
+     * the zlib stream. or the data as is if {@link #Stored}
+     */
+    private final byte[] Data;
+    private final long OriginalSize;
+    private final boolean Stored;
+    //</editor-fold>
+
+    private CompressedPayload(byte[] data, long originalSize, boolean stored) {
+        Data = data;
+        OriginalSize = originalSize;
+        Stored = stored;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Factories">
+    /**
+     * compresses a copy of the data with the default level.
+     *
+     * @param data the data to store
+     * @return the payload
+     */
+    public static CompressedPayload of(byte[] data) {
+        return of(data, 0, data.length, DEFAULT_LEVEL);
+    }
+
+    /**
+     * compresses a copy of the range.
+     *
+     * @param data the data to store
+     * @param off the offset of the first byte
+     * @param len the amount of bytes
+     * @param level the compression level. 0-9 or
+     * {@link Deflater#DEFAULT_COMPRESSION}
+     * @return the payload
+     */
+    public static CompressedPayload of(byte[] data, int off, int len, int level) {
+        Objects.checkFromIndexSize(off, len, data.length);
+        return of(ByteBuffer.wrap(data, off, len), level);
+    }
+
+    /**
+     * compresses the remaining bytes of the buffer. the position of the
+     * buffer is not changed.
+     *
+     * @param data the data to store
+     * @param level the compression level. 0-9 or
+     * {@link Deflater#DEFAULT_COMPRESSION}
+     * @return the payload
+     */
+    public static CompressedPayload of(ByteBuffer data, int level) {
+        checkLevel(level);
+        var input = data.duplicate();
+        final int length = input.remaining();
+        var compressor = new Compressor(level, length);
+        try {
+            compressor.deflate(input);
+            var compressed = compressor.finish();
+            if (compressed.length >= length) {
+                //did not pay off. keep the data as is.
+                var stored = new byte[length];
+                data.get(data.position(), stored);
+                return new CompressedPayload(stored, length, true);
+            }
+            return new CompressedPayload(compressed, length, false);
+        } finally {
+            compressor.end();
+        }
+    }
+
+    /**
+     * encodes and compresses the text.
+     *
+     * @param text the text to store
+     * @param charset the encoding used to store the text. the same is
+     * needed to read it back. see {@link #toString(Charset)}
+     * @param level the compression level. 0-9 or
+     * {@link Deflater#DEFAULT_COMPRESSION}
+     * @return the payload
+     */
+    public static CompressedPayload of(CharSequence text, Charset charset, int level) {
+        Objects.requireNonNull(text, "the text cannot be null");
+        Objects.requireNonNull(charset, "the charset cannot be null");
+        return of(charset.encode(CharBuffer.wrap(text)), level);
+    }
+
+    /**
+     * compresses the stream until its end. the data is compressed as it is
+     * read thus it is never held whole. (unless it does not compress, then it
+     * is inflated back and stored as is) the stream is not closed.
+     *
+     * @param in the data to store
+     * @param level the compression level. 0-9 or
+     * {@link Deflater#DEFAULT_COMPRESSION}
+     * @return the payload
+     * @throws IOException if the stream fails
+     */
+    public static CompressedPayload of(InputStream in, int level) throws IOException {
+        Objects.requireNonNull(in, "the stream cannot be null");
+        checkLevel(level);
+        var pool = BufferPool.shared();
+        var chunk = pool.acquireArray(CHUNK_SIZE);
+        var compressor = new Compressor(level, CHUNK_SIZE);
+        try {
+            long total = 0;
+            int read;
+            while ((read = in.read(chunk, 0, chunk.length)) >= 0) {
+                compressor.deflate(ByteBuffer.wrap(chunk, 0, read));
+                total += read;
+            }
+            var compressed = new CompressedPayload(compressor.finish(), total, false);
+            if (compressed.Data.length >= total) {
+                //did not pay off. the data was not kept, inflate it back to keep it as is.
+                return new CompressedPayload(compressed.toByteArray(), total, true);
+            }
+            return compressed;
+        } finally {
+            compressor.end();
+            pool.release(chunk);
+        }
+    }
+
+    private static void checkLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("invalid compression level: " + level);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Read">
+    /**
+     * @return a stream that decompresses the data as it is read.
+     */
+    public InputStream openStream() {
+        var source = new ByteArrayInputStream(Data);
+        //the stream owns its inflater and ends it on close.
+        return Stored ? source : new InflaterInputStream(source, new Inflater(), CHUNK_SIZE) {
+            private boolean closed = false;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    inf.end();
+                }
+                super.close();
+            }
+        };
+    }
+
+    /**
+     * decompresses the data into the stream.
+     *
+     * @param out where to write the data
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (Stored) {
+            out.write(Data);
+            return;
+        }
+        try (var in = openStream()) {
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * decompresses all the data.
+     *
+     * @return a new array with the data
+     * @throws IllegalStateException if the data does not fit a array.
+     */
+    public byte[] toByteArray() {
+        if (Stored) {
+            return Data.clone();
+        }
+        if (OriginalSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("the payload is too large for a array: " + OriginalSize);
+        }
+        var result = new byte[(int) OriginalSize];
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(Data);
+            int offset = 0;
+            while (offset < result.length) {
+                var count = inflater.inflate(result, offset, result.length - offset);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("the compressed data is truncated");
+                }
+                offset += count;
+            }
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("the compressed data is corrupt", ex);
+        } finally {
+            inflater.end();
+        }
+        return result;
+    }
+
+    /**
+     * decompresses and decodes the text.
+     *
+     * @param charset the encoding used to store the text
+     * @return the text
+     */
+    public String toString(Charset charset) {
+        return new String(toByteArray(), charset);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Sizes">
+    /**
+     * @return the size of the data before compression.
+     */
+    public long getOriginalSize() {
+        return OriginalSize;
+    }
+
+    /**
+     * @return the size of the data retained.
+     */
+    public int getCompressedSize() {
+        return Data.length;
+    }
+
+    /**
+     * @return the compressed size over the original size. 1 if the data
+     * could not be compressed (or is empty)
+     */
+    public double getRatio() {
+        return OriginalSize == 0 ? 1d : (double) Data.length / OriginalSize;
+    }
+
+    /**
+     * @return true if the data did not compress and is retained as is.
+     */
+    public boolean isStored() {
+        return Stored;
+    }
+    //</editor-fold>
+
+    @Override
+    public String toString() {
+        return "CompressedPayload{original=" + OriginalSize + ", compressed=" + Data.length
+                + (Stored ? ", stored" : "") + '}';
+    }
+
+    /**
+     * deflates into a pooled buffer that grows as needed.
+     */
+    private static final class Compressor {
+
+        private final Deflater Engine;
+        private ByteBuffer output;
+
+        private Compressor(int level, int expected) {
+            Engine = new Deflater(level);
+            //text compresses to a third or less. start there and grow if needed.
+            output = BufferPool.shared().acquire(Math.max(64, expected / 3), false);
+            output.clear();
+        }
+
+        private void deflate(ByteBuffer input) {
+            Engine.setInput(input);
+            while (!Engine.needsInput()) {
+                drain();
+            }
+        }
+
+        /**
+         * @return the compressed data. a exact sized array.
+         */
+        private byte[] finish() {
+            Engine.finish();
+            while (!Engine.finished()) {
+                drain();
+            }
+            return Arrays.copyOfRange(output.array(), output.arrayOffset(), output.arrayOffset() + output.position());
+        }
+
+        private void drain() {
+            if (!output.hasRemaining()) {
+                var pool = BufferPool.shared();
+                var larger = pool.acquire(output.capacity() * 2, false);
+                larger.clear();
+                larger.put(output.flip());
+                pool.release(output);
+                output = larger;
+            }
+            Engine.deflate(output);
+        }
+
+        private void end() {
+            Engine.end();
+            BufferPool.shared().release(output);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.util.List;
+import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import com.aeongames.edi.utils.common.EncodingDetector;
+
+/**
+ * classifies content by the magic numbers at its start. sources often
+ * advertise a generic flavor (for example {@code application/octet-stream} or
+ * {@code text/plain}) for content that is really a PNG, a PDF or a archive.
+ * sniffing the first bytes lets the handlers decline such content before
+ * reading (and decoding) all of it.
+ * <br>
+ * streams are peeked (mark/reset) thus the data is not consumed. see
+ * {@link #peekable(InputStream)}
+ *
+ * @author Eduardo Vindas
+ */
+public final class ContentSniffer {
+
+    /**
+     * the amount of bytes looked at.
+     */
+    public static final int PEEK_LENGTH = 512;
+
+    /**
+     * the content types the sniffer recognizes.
+     */
+    public static enum ContentType {
+        PNG("image/png"),
+        JPEG("image/jpeg"),
+        GIF("image/gif"),
+        BMP("image/bmp"),
+        WEBP("image/webp"),
+        TIFF("image/tiff"),
+        ICO("image/x-icon"),
+        PDF("application/pdf"),
+        RTF("application/rtf"),
+        ZIP("application/zip"),
+        GZIP("application/gzip"),
+        BZIP2("application/x-bzip2"),
+        XZ("application/x-xz"),
+        SEVEN_ZIP("application/x-7z-compressed"),
+        ZSTD("application/zstd"),
+        /**
+         * text on any of the encodings {@link EncodingDetector} recognizes.
+         */
+        TEXT("text/plain"),
+        /**
+         * binary content without a known signature.
+         */
+        BINARY("application/octet-stream"),
+        /**
+         * no content to look at.
+         */
+        UNKNOWN("application/octet-stream");
+
+        private final String MimeType;
+
+        private ContentType(String mimeType) {
+            MimeType = mimeType;
+        }
+
+        /**
+         * @return the MIME type of this content. i.e "image/png"
+         */
+        public String getMimeType() {
+            return MimeType;
+        }
+
+        /**
+         * @return true if the content is a image.
+         */
+        public boolean isImage() {
+            return MimeType.startsWith("image/");
+        }
+    }
+
+    /**
+     * a magic number at a offset. optionally along another one (all must
+     * match)
+     */
+    private static record Signature(ContentType type, int offset, byte[] magic, Signature also) {
+
+        private static Signature of(ContentType type, int offset, String magic, Signature also) {
+            return new Signature(type, offset, magic.getBytes(StandardCharsets.ISO_8859_1), also);
+        }
+
+        private boolean matches(byte[] data, int off, int len) {
+            if (offset + magic.length > len) {
+                return false;
+            }
+            for (int i = 0; i < magic.length; i++) {
+                if (data[off + offset + i] != magic[i]) {
+                    return false;
+                }
+            }
+            return also == null || also.matches(data, off, len);
+        }
+    }
+
+    /**
+     * the known signatures. the first that matches wins.
+     */
+    private static final List<Signature> SIGNATURES = List.of(
+            Signature.of(ContentType.PNG, 0, "\u0089PNG\r\n\u001A\n", null),
+            Signature.of(ContentType.JPEG, 0, "\u00FF\u00D8\u00FF", null),
+            Signature.of(ContentType.GIF, 0, "GIF87a", null),
+            Signature.of(ContentType.GIF, 0, "GIF89a", null),
+            Signature.of(ContentType.WEBP, 8, "WEBP", Signature.of(ContentType.WEBP, 0, "RIFF", null)),
+            Signature.of(ContentType.TIFF, 0, "II*\u0000", null),
+            Signature.of(ContentType.TIFF, 0, "MM\u0000*", null),
+            Signature.of(ContentType.PDF, 0, "%PDF-", null),
+            Signature.of(ContentType.RTF, 0, "{\\rtf", null),
+            Signature.of(ContentType.ZIP, 0, "PK\u0003\u0004", null),
+            Signature.of(ContentType.ZIP, 0, "PK\u0005\u0006", null),
+            Signature.of(ContentType.ZIP, 0, "PK\u0007\u0008", null),
+            Signature.of(ContentType.GZIP, 0, "\u001F\u008B", null),
+            Signature.of(ContentType.BZIP2, 0, "BZh", null),
+            Signature.of(ContentType.XZ, 0, "\u00FD7zXZ\u0000", null),
+            Signature.of(ContentType.SEVEN_ZIP, 0, "7z\u00BC\u00AF'\u001C", null),
+            Signature.of(ContentType.ZSTD, 0, "(\u00B5/\u00FD", null),
+            //"BM" alone is too weak. the reserved fields of the header are zero.
+            Signature.of(ContentType.BMP, 6, "\u0000\u0000\u0000\u0000", Signature.of(ContentType.BMP, 0, "BM", null)),
+            Signature.of(ContentType.ICO, 0, "\u0000\u0000\u0001\u0000", null)
+    );
+
+    private ContentSniffer() {
+    }
+
+    /**
+     * wraps the stream (if needed) so it can be peeked by
+     * {@link #sniff(InputStream)}
+     *
+     * @param in the stream to wrap
+     * @return the same stream if it supports mark/reset or a buffered one.
+     */
+    public static InputStream peekable(InputStream in) {
+        return EncodingDetector.peekable(in);
+    }
+
+    /**
+     * classifies the stream. the stream is marked, read up to
+     * {@link #PEEK_LENGTH} bytes and reset. thus its position is not changed.
+     *
+     * @param in a stream that supports mark/reset. see
+     * {@link #peekable(InputStream)}
+     * @return the content type.
+     * @throws IOException if the stream fails
+     * @throws IllegalArgumentException if the stream does not support
+     * mark/reset
+     */
+    public static ContentType sniff(InputStream in) throws IOException {
+        if (!Objects.requireNonNull(in, "the stream cannot be null").markSupported()) {
+            throw new IllegalArgumentException("the stream does not support mark/reset");
+        }
+        var prefix = new byte[PEEK_LENGTH];
+        in.mark(PEEK_LENGTH);
+        int read;
+        try {
+            read = in.readNBytes(prefix, 0, PEEK_LENGTH);
+        } finally {
+            in.reset();
+        }
+        return sniff(prefix, 0, read);
+    }
+
+    /**
+     * classifies the remaining bytes of the buffer. the position is not
+     * changed.
+     *
+     * @param data the content
+     * @return the content type.
+     */
+    public static ContentType sniff(ByteBuffer data) {
+        var length = Math.min(PEEK_LENGTH, data.remaining());
+        if (data.hasArray()) {
+            return sniff(data.array(), data.arrayOffset() + data.position(), length);
+        }
+        var prefix = new byte[length];
+        data.get(data.position(), prefix);
+        return sniff(prefix, 0, length);
+    }
+
+    /**
+     * classifies the content of the range. only the first
+     * {@link #PEEK_LENGTH} bytes are looked at.
+     *
+     * @param data the content
+     * @param off the offset of the first byte
+     * @param len the amount of bytes
+     * @return the content type.
+     */
+    public static ContentType sniff(byte[] data, int off, int len) {
+        Objects.checkFromIndexSize(off, len, data.length);
+        len = Math.min(len, PEEK_LENGTH);
+        if (len == 0) {
+            return ContentType.UNKNOWN;
+        }
+        for (var signature : SIGNATURES) {
+            if (signature.matches(data, off, len)) {
+                return signature.type();
+            }
+        }
+        return isText(data, off, len) ? ContentType.TEXT : ContentType.BINARY;
+    }
+
+    /**
+     * text has a BOM, the layout of UTF-16/UTF-32 or no control characters
+     * (other than the whitespace and escape)
+     */
+    private static boolean isText(byte[] data, int off, int len) {
+        var detection = EncodingDetector.detect(data, off, len, len < PEEK_LENGTH);
+        if (detection.bomLength() > 0 || detection.stride() > 1) {
+            return true;
+        }
+        for (int i = off; i < off + len; i++) {
+            var value = data[i];
+            if (value >= 0 && value < 0x20 && value != '\t' && value != '\n'
+                    && value != '\r' && value != '\f' && value != 0x1B) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
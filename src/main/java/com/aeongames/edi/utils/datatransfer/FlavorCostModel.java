@@ -0,0 +1,89 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.awt.datatransfer.DataFlavor;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * a functional interface that estimates how expensive is to read the data of
+ * a transfer in a given {@link DataFlavor}. it is used by
+ * {@link FlavorHandler} to pick, among the flavors it can handle and the
+ * transfer offers, the one that is cheaper to read. lower values are cheaper.
+ * <br>
+ * the {@link #DEFAULT} model prefers stream representations, as the AWT
+ * implementation fully materializes the data (and for text re encodes it)
+ * when a String, array or image is requested.
+ *
+ * @author Eduardo Vindas
+ */
+@FunctionalInterface
+public interface FlavorCostModel {
+
+    /**
+     * the default cost model. in order from cheaper to more expensive:
+     * <ul>
+     * <li>{@code InputStream} and {@code ReadableByteChannel}</li>
+     * <li>{@code Reader}</li>
+     * <li>{@code ByteBuffer} and then {@code CharBuffer}</li>
+     * <li>{@code byte[]} and then {@code String}</li>
+     * <li>any other representation</li>
+     * <li>images, as these require a conversion</li>
+     * <li>{@code DataFlavor.plainTextFlavor} as it is deprecated and
+     * <strong>REALLY</strong> slow</li>
+     * </ul>
+     */
+    public static final FlavorCostModel DEFAULT = new FlavorCostModel() {
+        @Override
+        @SuppressWarnings("deprecation")//we need to check for it in order to avoid it.
+        public int cost(DataFlavor flavor) {
+            if (DataFlavor.plainTextFlavor.equals(flavor)) {
+                return 100;
+            }
+            if ("image".equals(flavor.getPrimaryType())
+                    || DataFlavor.imageFlavor.equals(flavor)) {
+                return 90;
+            }
+            var type = flavor.getRepresentationClass();
+            if (flavor.isRepresentationClassInputStream()
+                    || ReadableByteChannel.class.isAssignableFrom(type)) {
+                return 10;
+            }
+            if (flavor.isRepresentationClassReader()) {
+                return 20;
+            }
+            if (ByteBuffer.class.isAssignableFrom(type)) {
+                return 30;
+            }
+            if (CharBuffer.class.isAssignableFrom(type)) {
+                return 40;
+            }
+            if (type == byte[].class) {
+                return 50;
+            }
+            if (type == String.class) {
+                return 60;
+            }
+            return 70;
+        }
+    };
+
+    /**
+     * estimates the cost of reading the transfer in the provided flavor.
+     *
+     * @param flavor the flavor to estimate. never null
+     * @return the relative cost of the flavor. lower is cheaper.
+     */
+    public int cost(DataFlavor flavor);
+}
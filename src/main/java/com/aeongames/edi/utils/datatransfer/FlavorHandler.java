@@ -12,7 +12,6 @@
 package com.aeongames.edi.utils.datatransfer;
 
 import java.util.Set;
-import java.util.List;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Collections;
@@ -28,6 +27,10 @@ import com.aeongames.edi.utils.threading.StopSignalProvider;
  * does a pre check if the Transferable is not null and that it supports the
  * Flavor we are ask to process. also simplifies calling the processor by
  * setting the {@code StopSignalProvider} ahead of time.
+ * <br>
+ * when the Transferable offers more than one of the flavors this handler can
+ * process, the cheapest to read according to a {@link FlavorCostModel} is
+ * negotiated. (ties are resolved by the registration order)
  *
  * @author Eduardo Vindas
  * @version 1.5
@@ -54,6 +57,13 @@ public class FlavorHandler {
      * }
      */
     private final StopSignalProvider stopProvider;
+
+    /**
+     * the cost model used to negotiate the flavor to process. null if this
+     * handler has no model of its own. (the router model or the default
+     * applies)
+     */
+    private final FlavorCostModel costModel;
     //</editor-fold>
 
     /**
@@ -69,6 +79,26 @@ public class FlavorHandler {
      * @param flavors the DataFlavor(s) to be handled by this instance.
      */
     public FlavorHandler(StopSignalProvider stopper, FlavorProcessor processor, DataFlavor... flavors) {
+        this(stopper, null, processor, flavors);
+    }
+
+    /**
+     * Constructor for FlavorHandler.
+     *
+     * @param stopper an <strong>Optional</strong> instance of
+     * {@code StopSignalProvider} used to determine if the execution or
+     * processing of this method (or underline calls) should be halted and the
+     * method should return as soon as possible. this value can be null if so,
+     * we assume that the task will never be ask to halt.
+     * @param costModel the cost model used to negotiate the flavor. it takes
+     * precedence over the model of the {@link FlavorRouter} that dispatches
+     * to this handler. if null the router model is used. (or
+     * {@link FlavorCostModel#DEFAULT} when used alone)
+     * @param processor the desire action to call when Handling the Desired
+     * Flavor(s)
+     * @param flavors the DataFlavor(s) to be handled by this instance.
+     */
+    public FlavorHandler(StopSignalProvider stopper, FlavorCostModel costModel, FlavorProcessor processor, DataFlavor... flavors) {
         flavors = Objects.requireNonNull(flavors, "Flavor cannot be null");
         if (flavors.length < 1 || flavors[0] == null) {
             throw new IllegalStateException("the first element cannot be null");
@@ -76,6 +106,7 @@ public class FlavorHandler {
         this.flavors = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(flavors)));
         stopProvider = Objects.requireNonNullElse(stopper, () -> false);//if is null assume there will be no stops
         this.processor = Objects.requireNonNull(processor, "processor cannot be null");
+        this.costModel = costModel;
     }
 
     /**
@@ -92,29 +123,116 @@ public class FlavorHandler {
         if (Objects.isNull(transferData)) {
             return false;
         }
+        return handleFlavor(transferData, transferData.getTransferDataFlavors());
+    }
+
+    /**
+     * check if the flavor is supported by this handler and if so, unload the
+     * processor to handle the flavor. unlike
+     * {@link #handleFlavor(java.awt.datatransfer.Transferable)} this method
+     * does not query the {@code Transferable} for its flavors. the caller
+     * provides the flavors it already gathered. this is useful when several
+     * handlers are tried against the same transfer, as the flavor list is
+     * fetched just once.
+     *
+     * @param transferData the Transferable object to handle
+     * @param available the flavors that {@code transferData} reports.
+     * @return true if the flavor was handled successfully, false otherwise
+     * @throws DataTransferException if a error happens while Reading the data
+     * from {@code transferData} due the Clipboard Was busy. or in used by other
+     * process
+     */
+    public final boolean handleFlavor(Transferable transferData, DataFlavor[] available) throws DataTransferException {
+        if (Objects.isNull(transferData) || Objects.isNull(available)) {
+            return false;
+        }
         //check if the transferible. supports the flavor that our handle can process
-        var FlavorTohandle = consumesAny(transferData.getTransferDataFlavors());
-        if (Objects.isNull(FlavorTohandle)) {
+        return handleNegotiated(consumesAny(available), transferData);
+    }
+
+    /**
+     * unload the processor to handle the flavor already negotiated by the
+     * caller.
+     *
+     * @param negotiated the flavor to process. if null nothing is done.
+     * @param transferData the Transferable object to handle
+     * @return true if the flavor was handled successfully, false otherwise
+     * @throws DataTransferException if a error happens while Reading the data
+     */
+    final boolean handleNegotiated(DataFlavor negotiated, Transferable transferData) throws DataTransferException {
+        if (Objects.isNull(negotiated)) {
             return false;
         }
         LoggingHelper.getLogger(LOGGERNAME).log(Level.INFO, "Compatible Handler Found, Calling: {0}", processor.getClass().getName());
-        return processor.handleFlavor(FlavorTohandle, stopProvider, transferData);
+        return processor.handleFlavor(negotiated, stopProvider, transferData);
+    }
+
+    /**
+     * asks the processor whenever it wants the sniffed content.
+     *
+     * @param negotiated the flavor negotiated for this handler
+     * @param type the type sniffed from the flavor data
+     * @return true if the processor accepts the content.
+     */
+    final boolean acceptsContent(DataFlavor negotiated, ContentSniffer.ContentType type) {
+        return processor.acceptsContent(negotiated, type);
     }
 
     /**
-     * Checks if this Handler Can consume Any of the Provided
+     * Checks if this Handler Can consume Any of the Provided flavors. and
+     * negotiates the cheapest one according to the cost model of this
+     * handler.
      *
      * @param otherFlavor the flavors to check against our internal registered
      * flavors.
-     * @return the first instance of a flavor that this class can handle
+     * @return the cheapest flavor that this class can handle. or null if none
      */
     public final DataFlavor consumesAny(DataFlavor... otherFlavor) {
-        var list= List.of(otherFlavor);
-        var encounter = flavors.stream().filter((t) -> list.contains(t)).findFirst();
-        if(encounter.isPresent()){
-            return encounter.get();
+        return negotiate(costModelOr(FlavorCostModel.DEFAULT), otherFlavor);
+    }
+
+    /**
+     * @param fallback the model to use if this handler has none of its own
+     * @return the cost model this handler negotiates with.
+     */
+    final FlavorCostModel costModelOr(FlavorCostModel fallback) {
+        return Objects.requireNonNullElse(costModel, fallback);
+    }
+
+    /**
+     * negotiates among the flavors this handler can process and the provided
+     * ones the cheapest according to the provided cost model. if two flavors
+     * have the same cost the first registered wins.
+     *
+     * @param model the cost model to use
+     * @param otherFlavor the flavors offered.
+     * @return the negotiated flavor or null if none can be consumed.
+     */
+    final DataFlavor negotiate(FlavorCostModel model, DataFlavor... otherFlavor) {
+        if (Objects.isNull(otherFlavor)) {
+            return null;
         }
-        return null;
+        //the arrays are small (a handful of flavors) a plain loop is cheaper
+        //than building a collection or a stream on each call.
+        DataFlavor cheapest = null;
+        int cheapestCost = Integer.MAX_VALUE;
+        for (var flavor : flavors) {
+            if (flavor == null) {
+                continue;
+            }
+            for (var offered : otherFlavor) {
+                if (flavor.equals(offered)) {
+                    //only cost the flavors that can be consumed.
+                    var cost = model.cost(flavor);
+                    if (cheapest == null || cost < cheapestCost) {
+                        cheapest = flavor;
+                        cheapestCost = cost;
+                    }
+                    break;
+                }
+            }
+        }
+        return cheapest;
     }
 
     public final boolean canConsume(DataFlavor... otherFlavor) {
@@ -130,4 +248,12 @@ public class FlavorHandler {
     public final Set<DataFlavor> getFlavor() {
         return flavors;
     }
+
+    /**
+     * @return the cost model of this handler. null if it has none of its own
+     * and thus negotiates with the model of the router that dispatches to it.
+     */
+    public final FlavorCostModel getCostModel() {
+        return costModel;
+    }
 }
@@ -48,4 +48,19 @@ public interface FlavorProcessor extends EventListener {
      * process
      */
     public boolean handleFlavor(DataFlavor flavor, StopSignalProvider stopProvider, Transferable transferData) throws DataTransferException;
+
+    /**
+     * called by a {@link FlavorRouter} with content sniffing enabled before
+     * {@link #handleFlavor(DataFlavor, StopSignalProvider, Transferable)}. the
+     * type is sniffed from the first bytes of the flavor data. (see
+     * {@link ContentSniffer}) returning false skips this processor without
+     * reading the data. by default all content is accepted.
+     *
+     * @param flavor the flavor negotiated for this processor
+     * @param type the type sniffed from the flavor data
+     * @return true to handle the content. false to skip it.
+     */
+    public default boolean acceptsContent(DataFlavor flavor, ContentSniffer.ContentType type) {
+        return true;
+    }
 }
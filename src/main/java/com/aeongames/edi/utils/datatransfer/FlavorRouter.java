@@ -0,0 +1,464 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.logging.Level;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.edi.utils.threading.StopSignalProvider;
+
+/**
+ * the routing engine shared by the Data transfer front ends (Clipboard and
+ * Drag and Drop) it holds the registered {@link FlavorHandler} in priority
+ * order, a index of the handlers by the flavors they consume and dispatch a
+ * {@link Transferable} to the compatible handlers.
+ * <br>
+ * the dispatch runs in "first come first serve". meaning. that if there are
+ * multiple handlers for the same flavor the one that has registered with hight
+ * priority(first encountered on the list) is called first, and once a handler
+ * reports that it handled the transfer no other handler is called.
+ * <br>
+ * registration is synchronized, while dispatching reads a immutable index and
+ * thus does not lock.
+ * <br>
+ * optionally the data of the negotiated flavor is sniffed (see
+ * {@link ContentSniffer}) and the processors that decline the content (see
+ * {@link FlavorProcessor#acceptsContent(DataFlavor, ContentSniffer.ContentType)})
+ * are skipped without reading it.
+ *
+ * @author Eduardo Vindas
+ */
+public final class FlavorRouter {
+
+    /**
+     * defines what the router does when a handler fails with a
+     * {@link DataTransferException}
+     */
+    public enum FailurePolicy {
+        /**
+         * stop the dispatch and propagate the error to the caller. used when
+         * the source (for example the clipboard) is busy and the transfer
+         * should be retried later.
+         */
+        ABORT,
+        /**
+         * log the error and continue with the next compatible handler.
+         */
+        CONTINUE
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Properties">
+    /**
+     * the Logger name for This class
+     */
+    private static final String LOGGERNAME = "DataTransferLogger";
+    /**
+     * a list of unique values. that contains the Flavors handlers in priority
+     * order.
+     */
+    private final LinkedHashSet<FlavorHandler> FlavorsListPriority;
+    /**
+     * a mapping for the {@code FlavorHandler} that wrap a
+     * {@code FlavorProcessor} this is required for ease of adding or removing
+     * handlers
+     */
+    private final HashMap<FlavorProcessor, FlavorHandler> MapProcessors;
+    /**
+     * a immutable index of the registered handlers by the flavors they can
+     * consume. it is rebuilt whenever a handler is added or removed.
+     */
+    private volatile FlavorIndex HandlersIndex = FlavorIndex.EMPTY;
+    /**
+     * what to do when a handler fails.
+     */
+    private final FailurePolicy policy;
+    /**
+     * the counters for this router.
+     */
+    private final RoutingMetrics metrics;
+    /**
+     * the cost model used to negotiate the flavor each handler will read.
+     */
+    private volatile FlavorCostModel costModel;
+    /**
+     * whenever to sniff the flavor data before calling each handler. see
+     * {@link #setContentSniffing(boolean)}
+     */
+    private volatile boolean contentSniffing = false;
+    //</editor-fold>
+
+    /**
+     * creates a new router.
+     *
+     * @param policy what the router should do when a handler fails with
+     * {@link DataTransferException}
+     */
+    public FlavorRouter(FailurePolicy policy) {
+        this(policy, FlavorCostModel.DEFAULT);
+    }
+
+    /**
+     * creates a new router.
+     *
+     * @param policy what the router should do when a handler fails with
+     * {@link DataTransferException}
+     * @param costModel the cost model used to negotiate flavors. if null
+     * {@link FlavorCostModel#DEFAULT} is used.
+     */
+    public FlavorRouter(FailurePolicy policy, FlavorCostModel costModel) {
+        this.policy = Objects.requireNonNull(policy, "the policy cannot be null");
+        this.costModel = Objects.requireNonNullElse(costModel, FlavorCostModel.DEFAULT);
+        FlavorsListPriority = new LinkedHashSet<>();
+        MapProcessors = new HashMap<>();
+        metrics = new RoutingMetrics();
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Add/Remove Handlers">
+    /**
+     * Add a FlavorProcessor to the list of handlers at the end of the list if
+     * no prioritized otherwise add it at the start.
+     *
+     * @param stopper an <strong>Optional</strong> instance of
+     * {@code StopSignalProvider} provided to the processor. can be null.
+     * @param handler the FlavorProcessor to add
+     * @param priority where to insert the handle. the priority means that it
+     * will be added at the start of the List rather than appending it.
+     * @param flavors the Flavor(s) (at the lest we need 1) that we want to
+     * handle using the provided FlavorProcessor
+     * @return true if the processor was registered. false if it was already
+     * registered.
+     */
+    public synchronized boolean addFlavorHandler(StopSignalProvider stopper, FlavorProcessor handler, boolean priority, DataFlavor... flavors) {
+        Objects.requireNonNull(handler, "FlavorProcessor cannot be null");
+        Objects.requireNonNull(flavors, "the Flavor cannot be null");
+        if (MapProcessors.containsKey(handler)) {
+            return false;
+        }
+        var itemHandler = new FlavorHandler(stopper, null, handler, flavors);
+        MapProcessors.put(handler, itemHandler);
+        LoggingHelper.getLogger(LOGGERNAME).log(Level.INFO, "Registering FlavorProcessor");
+        if (priority) {
+            FlavorsListPriority.addFirst(itemHandler);
+        } else {
+            FlavorsListPriority.addLast(itemHandler);
+        }
+        HandlersIndex = FlavorIndex.of(FlavorsListPriority);
+        return true;
+    }
+
+    /**
+     * removes the specified FlavorProcessor from the list of handling Flavors.
+     *
+     * @param handler the {@code FlavorProcessor} to be excluded.
+     * @return true if item was removed false otherwise.
+     */
+    public synchronized boolean removeFlavorHandler(FlavorProcessor handler) {
+        LoggingHelper.getLogger(LOGGERNAME).log(Level.INFO, "Removing FlavorProcessor");
+        var tmp = MapProcessors.remove(handler);
+        if (tmp != null) {
+            var removed = FlavorsListPriority.remove(tmp);
+            HandlersIndex = FlavorIndex.of(FlavorsListPriority);
+            return removed;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if there are no handlers registered.
+     */
+    public boolean isEmpty() {
+        return HandlersIndex.rank().isEmpty();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Routing">
+    /**
+     * gathers the handlers that can consume at least one of the provided
+     * flavors.
+     *
+     * @param flavors the flavors offered by a transfer.
+     * @return the compatible handlers in priority order. can be empty.
+     */
+    public List<FlavorHandler> compatibleHandlers(DataFlavor[] flavors) {
+        return HandlersIndex.compatibleWith(flavors);
+    }
+
+    /**
+     * finds the handler with the highest priority that can consume at least
+     * one of the provided flavors.
+     *
+     * @param flavors the flavors offered by a transfer.
+     * @return the handler or null if none can consume the flavors.
+     */
+    public FlavorHandler findHandler(DataFlavor[] flavors) {
+        var compatible = HandlersIndex.compatibleWith(flavors);
+        return compatible.isEmpty() ? null : compatible.getFirst();
+    }
+
+    /**
+     * dispatch the provided transfer to the compatible handlers in priority
+     * order until one of them reports that the transfer was handled. the
+     * flavors of the {@code Transferable} are gathered just once.
+     *
+     * @param contents the transferable object from which the handlers read
+     * @param preferred an optional handler to try first (for example the one
+     * detected while accepting a Drop) can be null.
+     * @param stopper an optional {@code StopSignalProvider} checked between
+     * handlers. can be null
+     * @return true if a handler handled the transfer. false otherwise
+     * @throws DataTransferException if a handler fails and the policy of this
+     * router is {@link FailurePolicy#ABORT}
+     */
+    public boolean route(Transferable contents, FlavorHandler preferred, StopSignalProvider stopper) throws DataTransferException {
+        Objects.requireNonNull(contents, "the Transferable cannot be null");
+        stopper = Objects.requireNonNullElse(stopper, () -> false);
+        final long start = System.nanoTime();
+        final var sniffer = contentSniffing ? new SniffingTransferable(contents) : null;
+        final Transferable source = sniffer != null ? sniffer : contents;
+        boolean handled = false;
+        try {
+            var flavors = contents.getTransferDataFlavors();
+            if (Objects.nonNull(preferred)) {
+                handled = runHandler(preferred, source, flavors, sniffer);
+            }
+            if (!handled) {
+                for (var handler : HandlersIndex.compatibleWith(flavors)) {
+                    if (stopper.isStopSignalReceived()) {
+                        break;
+                    }
+                    if (handler == preferred) {
+                        continue;
+                    }
+                    handled = runHandler(handler, source, flavors, sniffer);
+                    if (handled) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            if (sniffer != null) {
+                sniffer.release();
+            }
+            metrics.recordRouted(System.nanoTime() - start);
+            if (handled) {
+                metrics.recordHandled();
+            } else {
+                metrics.recordUnhandled();
+            }
+        }
+        return handled;
+    }
+
+    /**
+     * Executes the Handler. while catching error. and logging if they happen.
+     *
+     * @param handler the handler to call
+     * @param contents the content to delegate
+     * @param flavors the flavors previously gathered from {@code contents}
+     * @param sniffer the sniffer of the contents. null if not sniffing.
+     * @return whenever or not the execution succeed.
+     * @throws DataTransferException if the handler fails and the policy is
+     * {@link FailurePolicy#ABORT}
+     */
+    private boolean runHandler(FlavorHandler handler, Transferable contents, DataFlavor[] flavors,
+            SniffingTransferable sniffer) throws DataTransferException {
+        //the handler own model (if any) takes precedence over the router one.
+        var negotiated = handler.negotiate(handler.costModelOr(costModel), flavors);
+        if (Objects.isNull(negotiated)) {
+            return false;
+        }
+        if (Objects.nonNull(sniffer)) {
+            var type = sniffer.sniff(negotiated);
+            if (Objects.nonNull(type) && !handler.acceptsContent(negotiated, type)) {
+                metrics.recordSniffSkip();
+                return false;
+            }
+        }
+        metrics.recordAttempt();
+        metrics.recordNegotiated(negotiated);
+        try {
+            var result = handler.handleNegotiated(negotiated, contents);
+            if (result) {
+                LoggingHelper.getLogger(LOGGERNAME).info("Data Transfer Handled");
+                return true;
+            }
+        } catch (DataTransferException Cex) {
+            metrics.recordFailure();
+            LoggingHelper.getLogger(LOGGERNAME)
+                    .log(Level.SEVERE, "Data Transfer Exception detected", Cex);
+            if (policy == FailurePolicy.ABORT) {
+                throw Cex;
+            }
+        } catch (Throwable ex) {
+            //capture all other errors and log em
+            //we do this as handlers might not have handled the error.
+            //but are NOT errors that we should care for.
+            metrics.recordFailure();
+            LoggingHelper.getLogger(LOGGERNAME)
+                    .log(Level.SEVERE, "Error Has been catch at runHandler", ex);
+        }
+        return false;
+    }
+    //</editor-fold>
+
+    /**
+     * @return the metrics collected by this router.
+     */
+    public RoutingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the cost model used to negotiate flavors for the handlers
+     * without a model of their own.
+     */
+    public FlavorCostModel getCostModel() {
+        return costModel;
+    }
+
+    /**
+     * sets the cost model used to negotiate the flavor each handler reads.
+     * it applies to the following dispatches. handlers created with a model
+     * of their own keep negotiating with it.
+     *
+     * @param costModel the cost model. if null {@link FlavorCostModel#DEFAULT}
+     * is used.
+     */
+    public void setCostModel(FlavorCostModel costModel) {
+        this.costModel = Objects.requireNonNullElse(costModel, FlavorCostModel.DEFAULT);
+    }
+
+    /**
+     * @return whenever the flavor data is sniffed before calling each
+     * handler.
+     */
+    public boolean isContentSniffing() {
+        return contentSniffing;
+    }
+
+    /**
+     * enables or disables the content sniffing. when enabled the first bytes
+     * of the negotiated flavor (if it is represented as a stream, buffer or
+     * byte array) are classified before calling each handler and the ones
+     * that decline the content are skipped. the data sniffed is handed to the
+     * handler (the source is not opened twice). it applies to the following
+     * dispatches.
+     *
+     * @param enabled whenever to sniff the content.
+     */
+    public void setContentSniffing(boolean enabled) {
+        contentSniffing = enabled;
+    }
+
+    /**
+     * @return the policy this router applies when a handler fails.
+     */
+    public FailurePolicy getFailurePolicy() {
+        return policy;
+    }
+
+    /**
+     * logs the provided flavors. (only if running in debug mode)
+     *
+     * @param flavors the flavors to log.
+     */
+    public void DebugLogFlavors(DataFlavor flavors[]) {
+        if (!LoggingHelper.RunningInDebugMode()) {
+            return;
+        }
+        if (flavors == null || flavors.length == 0) {
+            LoggingHelper.getLogger(LOGGERNAME + ".debug").log(Level.INFO, "Edge case: there are no Data Flavors provided.");
+            return;
+        }
+        HashMap<String, LinkedHashSet<String>> flavorsNames = new HashMap<>();
+        for (DataFlavor flavor : flavors) {
+            if (flavor == null) {
+                continue;
+            }
+            var list = flavorsNames.computeIfAbsent(flavor.getHumanPresentableName(), (t) -> new LinkedHashSet<>());
+            var added = list.add(flavor.getDefaultRepresentationClassAsString());
+            if (added) {
+                LoggingHelper.getLogger(LOGGERNAME + ".debug").log(Level.INFO, "Flavor: {0} :: Flavor Class: {1}\nMIME:{2}",
+                        new Object[]{flavor.getHumanPresentableName(),
+                            flavor.getDefaultRepresentationClassAsString(),
+                            flavor.getMimeType()
+                        });
+            }
+        }
+        flavorsNames.clear();
+    }
+
+    /**
+     * a immutable lookup of the registered {@code FlavorHandler} by the
+     * flavors they consume. each list on the map keeps the handlers in
+     * priority order and the rank map allows to merge the lists back into the
+     * priority order.
+     */
+    private record FlavorIndex(Map<DataFlavor, List<FlavorHandler>> byFlavor,
+            Map<FlavorHandler, Integer> rank) {
+
+        private static final FlavorIndex EMPTY = new FlavorIndex(Map.of(), Map.of());
+
+        /**
+         * builds the index from the provided handlers.
+         *
+         * @param handlers the handlers in priority order.
+         * @return a new index for the provided handlers.
+         */
+        private static FlavorIndex of(Iterable<FlavorHandler> handlers) {
+            var byFlavor = new HashMap<DataFlavor, List<FlavorHandler>>();
+            var rank = new HashMap<FlavorHandler, Integer>();
+            for (var handler : handlers) {
+                rank.put(handler, rank.size());
+                for (var flavor : handler.getFlavor()) {
+                    byFlavor.computeIfAbsent(flavor, (t) -> new ArrayList<>()).add(handler);
+                }
+            }
+            byFlavor.replaceAll((flavor, list) -> List.copyOf(list));
+            return new FlavorIndex(Map.copyOf(byFlavor), Map.copyOf(rank));
+        }
+
+        /**
+         * gathers the handlers that can consume at least one of the provided
+         * flavors.
+         *
+         * @param flavors the flavors offered by a transfer.
+         * @return the compatible handlers in priority order. can be empty.
+         */
+        private List<FlavorHandler> compatibleWith(DataFlavor[] flavors) {
+            if (flavors == null || flavors.length == 0 || byFlavor.isEmpty()) {
+                return List.of();
+            }
+            var found = new ArrayList<FlavorHandler>();
+            for (var flavor : flavors) {
+                if (flavor == null) {
+                    continue;
+                }
+                for (var handler : byFlavor.getOrDefault(flavor, List.of())) {
+                    if (!found.contains(handler)) {
+                        found.add(handler);
+                    }
+                }
+            }
+            found.sort(Comparator.comparingInt(rank::get));
+            return found;
+        }
+    }
+}
@@ -0,0 +1,475 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.awt.Image;
+import java.util.Objects;
+import java.util.ArrayList;
+import java.awt.MediaTracker;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.awt.AlphaComposite;
+import java.awt.RenderingHints;
+import java.awt.image.Raster;
+import javax.swing.ImageIcon;
+import javax.imageio.ImageIO;
+import java.awt.image.ColorModel;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageWriter;
+import java.awt.image.DataBufferInt;
+import java.awt.image.BufferedImage;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import com.aeongames.edi.utils.common.BufferPool;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.edi.utils.threading.StopSignalProvider;
+
+/**
+ * a {@link FlavorProcessor} for image flavors
+ * ({@link DataFlavor#imageFlavor} and any flavor represented by a
+ * {@link Image}). the calling thread (often the EDT while handling a drop)
+ * only fetches the {@link Image} from the transfer. the conversion to ARGB,
+ * the downscale and the encoding are done on a worker pool and the result is
+ * pushed to a {@link ImageConsumer} as a {@link ImagePayload}. thus a large
+ * screenshot does not freeze the UI.
+ * <br>
+ * the ARGB rasters used to convert the images are kept and reused by the
+ * next conversions. and so are the buffers of the raw ARGB payloads once the
+ * payload is closed. a PNG is written into pooled chunks of the
+ * {@link BufferPool#shared() shared pool} and then copied into a buffer of its
+ * exact size. (a pooled one if it is small enough) images larger than the
+ * pixel limit are scaled down (keeping the aspect ratio) before anything else.
+ * thus the memory used by a conversion is bound by the limit and not by the
+ * size of the image pasted.
+ * <br>
+ * since the work is asynchronous {@code handleFlavor} returns true once the
+ * image is accepted for processing. errors of the conversion are reported to
+ * {@link ImageConsumer#failed(Throwable)}
+ *
+ * @author Eduardo Vindas
+ */
+public class ImageFlavorProcessor implements FlavorProcessor, AutoCloseable {
+
+    /**
+     * receives the converted images. called on a worker thread.
+     */
+    @FunctionalInterface
+    public static interface ImageConsumer {
+
+        /**
+         * called with the converted image. the consumer owns the payload and
+         * <strong>must</strong> close it. (or hand it to someone that will)
+         *
+         * @param payload the converted image
+         */
+        public void accept(ImagePayload payload);
+
+        /**
+         * called if the conversion fails. by default the error is logged.
+         *
+         * @param error the cause
+         */
+        public default void failed(Throwable error) {
+            LoggingHelper.getLogger(LOGGERNAME).log(Level.WARNING, "the image conversion failed", error);
+        }
+    }
+
+    /**
+     * the default pixel limit. 3840x2160 (4K UHD)
+     */
+    public static final long DEFAULT_MAX_PIXELS = 3840L * 2160L;
+    /**
+     * the amount of rasters kept for reuse.
+     */
+    private static final int RASTER_POOL_SIZE = 4;
+    /**
+     * the size of the chunks a PNG is written into.
+     */
+    private static final int PNG_CHUNK_SIZE = 64 * 1024;
+    private static final String LOGGERNAME = "DataTransferLogger";
+    private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    private final ImageConsumer Consumer;
+    private final ImagePayload.Encoding Encoding;
+    private final long MaxPixels;
+    private final ExecutorService Workers;
+    private final boolean OwnsWorkers;
+    /**
+     * the rasters free to be reused.
+     */
+    private final ArrayBlockingQueue<int[]> Rasters = new ArrayBlockingQueue<>(RASTER_POOL_SIZE);
+    /**
+     * the buffers of the closed ARGB payloads. free to be reused.
+     */
+    private final ArrayBlockingQueue<ByteBuffer> Outputs = new ArrayBlockingQueue<>(RASTER_POOL_SIZE);
+    //</editor-fold>
+
+    /**
+     * creates a processor that encodes to PNG with the default pixel limit on
+     * its own worker pool.
+     *
+     * @param consumer receives the converted images
+     */
+    public ImageFlavorProcessor(ImageConsumer consumer) {
+        this(consumer, ImagePayload.Encoding.PNG, DEFAULT_MAX_PIXELS);
+    }
+
+    /**
+     * creates a processor with its own worker pool. (a daemon thread per
+     * core, up to 4) the pool is shutdown by {@link #close()}
+     *
+     * @param consumer receives the converted images
+     * @param encoding the encoding of the payloads
+     * @param maxPixels the pixel limit. images with more pixels are scaled
+     * down. zero or negative for no limit.
+     */
+    public ImageFlavorProcessor(ImageConsumer consumer, ImagePayload.Encoding encoding, long maxPixels) {
+        this(consumer, encoding, maxPixels, Executors.newFixedThreadPool(
+                Math.clamp(Runtime.getRuntime().availableProcessors(), 1, 4), task -> {
+                    var thread = new Thread(task, "image-worker-" + WORKER_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }), true);
+    }
+
+    /**
+     * creates a processor that runs the conversions on the provided pool. the
+     * pool is not shutdown by {@link #close()}
+     *
+     * @param consumer receives the converted images
+     * @param encoding the encoding of the payloads
+     * @param maxPixels the pixel limit. images with more pixels are scaled
+     * down. zero or negative for no limit.
+     * @param workers the pool that runs the conversions
+     */
+    public ImageFlavorProcessor(ImageConsumer consumer, ImagePayload.Encoding encoding, long maxPixels, ExecutorService workers) {
+        this(consumer, encoding, maxPixels, workers, false);
+    }
+
+    private ImageFlavorProcessor(ImageConsumer consumer, ImagePayload.Encoding encoding, long maxPixels, ExecutorService workers, boolean owns) {
+        Consumer = Objects.requireNonNull(consumer, "the consumer cannot be null");
+        Encoding = Objects.requireNonNull(encoding, "the encoding cannot be null");
+        Workers = Objects.requireNonNull(workers, "the worker pool cannot be null");
+        MaxPixels = maxPixels;
+        OwnsWorkers = owns;
+    }
+
+    /**
+     * fetches the image and queues its conversion.
+     *
+     * @return true if the image was accepted for processing. false if the
+     * flavor is not a image, there is no image or a stop was requested.
+     */
+    @Override
+    public boolean handleFlavor(DataFlavor flavor, StopSignalProvider stopProvider, Transferable transferData) throws DataTransferException {
+        if (!Image.class.isAssignableFrom(flavor.getRepresentationClass())) {
+            return false;
+        }
+        if (stopProvider.isStopSignalReceived()) {
+            return false;
+        }
+        Object data;
+        try {
+            data = transferData.getTransferData(flavor);
+        } catch (UnsupportedFlavorException | IOException ex) {
+            throw new DataTransferException(ex, "Unable to read the image");
+        }
+        if (!(data instanceof Image image) || stopProvider.isStopSignalReceived()) {
+            return false;
+        }
+        submit(image).whenComplete((payload, error) -> {
+            if (error != null) {
+                Consumer.failed(error);
+                return;
+            }
+            try {
+                Consumer.accept(payload);
+            } catch (RuntimeException ex) {
+                payload.close();
+                Consumer.failed(ex);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * converts the image on the worker pool. the result is not pushed to the
+     * consumer. the caller owns the payload and must close it.
+     *
+     * @param image the image to convert
+     * @return a future completed with the payload
+     */
+    public CompletableFuture<ImagePayload> submit(Image image) {
+        Objects.requireNonNull(image, "the image cannot be null");
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return convert(image);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, Workers);
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Conversion">
+    /**
+     * converts the image on the current thread.
+     */
+    private ImagePayload convert(Image image) throws IOException {
+        image = loaded(image);
+        final int sourceWidth = image.getWidth(null), sourceHeight = image.getHeight(null);
+        if (sourceWidth <= 0 || sourceHeight <= 0) {
+            throw new IOException("the image has no size");
+        }
+        int width = sourceWidth, height = sourceHeight;
+        var pixels = (long) width * height;
+        if (MaxPixels > 0 && pixels > MaxPixels) {
+            var scale = Math.sqrt((double) MaxPixels / pixels);
+            width = Math.max(1, (int) (width * scale));
+            height = Math.max(1, (int) (height * scale));
+        }
+        if ((long) width * height > Integer.MAX_VALUE / 4) {
+            throw new IOException("the image is too large: " + width + "x" + height);
+        }
+        //a PNG of a image that is already buffered and fits does not need the copy.
+        if (Encoding == ImagePayload.Encoding.PNG && image instanceof BufferedImage buffered
+                && width == sourceWidth && height == sourceHeight) {
+            return new ImagePayload(Encoding, width, height, sourceWidth, sourceHeight,
+                    encodePNG(buffered), BufferPool.shared()::release);
+        }
+        var raster = acquireRaster(width * height);
+        try {
+            var argb = wrap(raster, width, height);
+            draw(image, argb, width, height);
+            if (Encoding == ImagePayload.Encoding.PNG) {
+                return new ImagePayload(Encoding, width, height, sourceWidth, sourceHeight,
+                        encodePNG(argb), BufferPool.shared()::release);
+            }
+            return new ImagePayload(Encoding, width, height, sourceWidth, sourceHeight,
+                    encodeARGB(raster, width * height), this::releaseOutput);
+        } finally {
+            releaseRaster(raster);
+        }
+    }
+
+    /**
+     * waits for a toolkit image to load. buffered images are always loaded.
+     */
+    private static Image loaded(Image image) throws IOException {
+        if (image instanceof BufferedImage) {
+            return image;
+        }
+        var icon = new ImageIcon(image);
+        if (icon.getImageLoadStatus() != MediaTracker.COMPLETE) {
+            throw new IOException("unable to load the image");
+        }
+        return icon.getImage();
+    }
+
+    /**
+     * wraps the raster on a ARGB image without copying it.
+     */
+    private static BufferedImage wrap(int[] raster, int width, int height) {
+        var model = ColorModel.getRGBdefault();
+        var buffer = new DataBufferInt(raster, width * height);
+        var writable = Raster.createPackedRaster(buffer, width, height, width,
+                new int[]{0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000}, null);
+        return new BufferedImage(model, writable, false, null);
+    }
+
+    /**
+     * draws (scaling if needed) the image into the target. the target
+     * replaces whatever a reused raster had.
+     */
+    private static void draw(Image image, BufferedImage target, int width, int height) {
+        var graphics = target.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Src);
+            if (width != image.getWidth(null) || height != image.getHeight(null)) {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            }
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    private static ByteBuffer encodePNG(BufferedImage image) throws IOException {
+        var writers = ImageIO.getImageWritersByFormatName("png");
+        if (!writers.hasNext()) {
+            throw new IOException("there is no PNG writer");
+        }
+        ImageWriter writer = writers.next();
+        var out = new PooledOutputStream();
+        try {
+            //the memory cache avoids the temporary file ImageIO uses by default.
+            try (var stream = new MemoryCacheImageOutputStream(out)) {
+                writer.setOutput(stream);
+                writer.write(null, new IIOImage(image, null, null), null);
+            }
+            return out.finish();
+        } catch (IOException | RuntimeException ex) {
+            out.discard();
+            throw ex;
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private ByteBuffer encodeARGB(int[] raster, int pixels) {
+        var data = acquireOutput(pixels * 4);
+        data.clear().limit(pixels * 4);
+        //the buffers are big endian. thus the bytes are alpha, red, green, blue.
+        data.asIntBuffer().put(raster, 0, pixels);
+        return data;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Rasters">
+    /**
+     * a free raster large enough or a new one. a raster too small is dropped
+     * to make room for the new one.
+     */
+    private int[] acquireRaster(int size) {
+        var raster = Rasters.poll();
+        if (raster != null && raster.length >= size) {
+            return raster;
+        }
+        return new int[size];
+    }
+
+    private void releaseRaster(int[] raster) {
+        //once the pool is full the raster is left to the GC.
+        Rasters.offer(raster);
+    }
+
+    /**
+     * a free ARGB payload buffer large enough or a new one.
+     */
+    private ByteBuffer acquireOutput(int size) {
+        var buffer = Outputs.poll();
+        if (buffer != null && buffer.capacity() >= size) {
+            return buffer;
+        }
+        if (buffer != null) {
+            BufferPool.shared().release(buffer);
+        }
+        return BufferPool.shared().acquire(size, false);
+    }
+
+    /**
+     * called by the ARGB payloads once closed. once the queue is full the
+     * buffer goes back to the shared pool. (that drops the large ones)
+     */
+    private void releaseOutput(ByteBuffer buffer) {
+        if (!Outputs.offer(buffer)) {
+            BufferPool.shared().release(buffer);
+        }
+    }
+    //</editor-fold>
+
+    /**
+     * shuts down the worker pool if it was created by this processor. the
+     * conversions already queued are completed. the rasters and the free
+     * payload buffers are dropped.
+     */
+    @Override
+    public void close() {
+        if (OwnsWorkers) {
+            Workers.shutdown();
+        }
+        Rasters.clear();
+        Outputs.clear();
+    }
+
+    /**
+     * a stream that writes into pooled chunks. thus the size of the output
+     * does not need to be guessed and no large buffer is allocated (and
+     * copied) while it grows.
+     */
+    private static final class PooledOutputStream extends OutputStream {
+
+        private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer current;
+        private long size = 0;
+
+        @Override
+        public void write(int b) {
+            next().put((byte) b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            Objects.checkFromIndexSize(off, len, b.length);
+            while (len > 0) {
+                var chunk = next();
+                var count = Math.min(len, chunk.remaining());
+                chunk.put(b, off, count);
+                off += count;
+                len -= count;
+                size += count;
+            }
+        }
+
+        /**
+         * @return a chunk with room for at the least a byte.
+         */
+        private ByteBuffer next() {
+            if (current == null || !current.hasRemaining()) {
+                if (size + PNG_CHUNK_SIZE > Integer.MAX_VALUE - 8) {
+                    throw new OutOfMemoryError("the encoded image is too large");
+                }
+                current = BufferPool.shared().acquire(PNG_CHUNK_SIZE, false);
+                current.clear().limit(PNG_CHUNK_SIZE);
+                chunks.add(current);
+            }
+            return current;
+        }
+
+        /**
+         * copies the chunks into a buffer of the exact size (from the pool
+         * if it fits a pooled class) and returns the chunks to the pool.
+         *
+         * @return the buffer limited to the data written.
+         */
+        private ByteBuffer finish() {
+            var result = BufferPool.shared().acquire((int) size, false);
+            result.clear();
+            for (var chunk : chunks) {
+                result.put(chunk.flip());
+            }
+            discard();
+            return result.flip();
+        }
+
+        private void discard() {
+            var pool = BufferPool.shared();
+            for (var chunk : chunks) {
+                pool.release(chunk);
+            }
+            chunks.clear();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.function.Consumer;
+import com.aeongames.edi.utils.common.BufferPool;
+
+/**
+ * a image converted by {@link ImageFlavorProcessor}. the encoded data is held
+ * on a buffer borrowed from the processor (raw ARGB data) or the
+ * {@link BufferPool#shared() shared pool}. (a PNG) thus the payload
+ * <strong>must</strong> be closed once the data is no longer needed. the
+ * buffers and streams returned are invalid after that.
+ *
+ * @author Eduardo Vindas
+ */
+public final class ImagePayload implements AutoCloseable {
+
+    /**
+     * how the pixels are encoded.
+     */
+    public static enum Encoding {
+        /**
+         * a PNG file.
+         */
+        PNG,
+        /**
+         * the raw pixels. 4 bytes per pixel (alpha, red, green, blue) row by
+         * row from the top left corner.
+         */
+        ARGB
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    private final Encoding Encoding;
+    private final int Width, Height;
+    private final int SourceWidth, SourceHeight;
+    private final ByteBuffer Data;
+    private final Consumer<ByteBuffer> Releaser;
+    private volatile boolean closed = false;
+    //</editor-fold>
+
+    /**
+     * package private. the payloads are created by the processor.
+     *
+     * @param data a pooled buffer positioned and limited to the encoded data.
+     * @param releaser returns the buffer to where it was borrowed from.
+     */
+    ImagePayload(Encoding encoding, int width, int height, int sourceWidth, int sourceHeight,
+            ByteBuffer data, Consumer<ByteBuffer> releaser) {
+        Encoding = encoding;
+        Width = width;
+        Height = height;
+        SourceWidth = sourceWidth;
+        SourceHeight = sourceHeight;
+        Data = data;
+        Releaser = releaser;
+    }
+
+    /**
+     * @return a read only view of the encoded data.
+     * @throws IllegalStateException if the payload was closed.
+     */
+    public ByteBuffer asByteBuffer() {
+        checkOpen();
+        return Data.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a stream that reads the encoded data.
+     * @throws IllegalStateException if the payload was closed.
+     */
+    public InputStream openStream() {
+        return Channels.newInputStream(new ByteBufferChannel(asByteBuffer()));
+    }
+
+    /**
+     * @return the size of the encoded data in bytes.
+     */
+    public int size() {
+        return Data.remaining();
+    }
+
+    /**
+     * @return the encoding of the data.
+     */
+    public Encoding getEncoding() {
+        return Encoding;
+    }
+
+    /**
+     * @return the width of the (possibly scaled) image.
+     */
+    public int getWidth() {
+        return Width;
+    }
+
+    /**
+     * @return the height of the (possibly scaled) image.
+     */
+    public int getHeight() {
+        return Height;
+    }
+
+    /**
+     * @return the width of the image received.
+     */
+    public int getSourceWidth() {
+        return SourceWidth;
+    }
+
+    /**
+     * @return the height of the image received.
+     */
+    public int getSourceHeight() {
+        return SourceHeight;
+    }
+
+    /**
+     * @return true if the image was scaled down to fit the size limit.
+     */
+    public boolean isScaled() {
+        return Width != SourceWidth || Height != SourceHeight;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("the payload was closed");
+        }
+    }
+
+    /**
+     * returns the data buffer to where it was borrowed from.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Releaser.accept(Data);
+    }
+
+    @Override
+    public String toString() {
+        return "ImagePayload{" + Encoding + ", " + Width + "x" + Height + ", bytes=" + Data.remaining() + '}';
+    }
+}
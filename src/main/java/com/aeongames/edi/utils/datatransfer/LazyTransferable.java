@@ -0,0 +1,331 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.util.Objects;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.LinkedHashMap;
+import java.nio.charset.Charset;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.awt.datatransfer.DataFlavor;
+import java.nio.channels.ReadableByteChannel;
+import java.awt.datatransfer.Transferable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import com.aeongames.edi.utils.common.TranscodingInputStream;
+
+/**
+ * a {@link Transferable} that does not hold the data it transfer. rather the
+ * data is produced from a {@link StreamSupplier} when (and only if) a flavor
+ * is requested by the receiver. this is intended to put large generated data
+ * into the clipboard or to start a drag without the need to build the whole
+ * payload in memory first.
+ * <br>
+ * flavors whose representation class is a stream ({@code InputStream},
+ * {@code Reader} or {@code ReadableByteChannel}) open a new stream from the
+ * supplier on each request. other representations ({@code byte[]},
+ * {@code ByteBuffer}, {@code String}, {@code CharBuffer}) are converted on the
+ * first request and cached until {@link #release()} is called.
+ * <br>
+ * when placed into the clipboard thru
+ * {@code ClipboardService#setClipboardContents(Transferable)} the cache is
+ * released once the service looses the clipboard ownership.
+ *
+ * @author Eduardo Vindas
+ */
+public class LazyTransferable implements Transferable {
+
+    /**
+     * a supplier of the data to transfer. each call should return a new
+     * stream positioned at the start of the data.
+     */
+    @FunctionalInterface
+    public interface StreamSupplier {
+
+        /**
+         * opens a new stream to read the data.
+         *
+         * @return a new stream. the caller is responsible to close it.
+         * @throws IOException if the stream cannot be open.
+         */
+        public InputStream open() throws IOException;
+    }
+
+    /**
+     * a supplier of the data to transfer as a channel. each call should return
+     * a new channel positioned at the start of the data.
+     */
+    @FunctionalInterface
+    public interface ChannelSupplier {
+
+        /**
+         * opens a new channel to read the data.
+         *
+         * @return a new channel. the caller is responsible to close it.
+         * @throws IOException if the channel cannot be open.
+         */
+        public ReadableByteChannel open() throws IOException;
+    }
+
+    /**
+     * a conversion from the source data into the representation of a flavor.
+     */
+    @FunctionalInterface
+    public interface FlavorConverter {
+
+        /**
+         * converts the source data into the representation class of the
+         * flavor. if the result is a {@link Closeable} (a stream) it is not
+         * cached. otherwise it is cached until the transferable is released.
+         *
+         * @param flavor the requested flavor
+         * @param source the supplier of the data.
+         * @return the data for the flavor.
+         * @throws IOException if the data cannot be read.
+         */
+        public Object convert(DataFlavor flavor, StreamSupplier source) throws IOException;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Properties">
+    /**
+     * the supplier of the data.
+     */
+    private final StreamSupplier source;
+    /**
+     * the character set of the data when converted into text.
+     */
+    private final Charset textCharset;
+    /**
+     * the flavors offered and the conversion to use for each one. in order of
+     * preference.
+     */
+    private final LinkedHashMap<DataFlavor, FlavorConverter> converters;
+    /**
+     * the conversions already computed.
+     */
+    private final ConcurrentHashMap<DataFlavor, Object> cache;
+    //</editor-fold>
+
+    /**
+     * creates a new Transferable that reads its data from the provided source.
+     *
+     * @param source the supplier of the data.
+     * @param textCharset the character set of the data, used when a text
+     * representation is requested. if null UTF-8 is assumed.
+     * @param flavors the flavors to offer in order of preference. these use
+     * the default conversion for their representation class.
+     */
+    public LazyTransferable(StreamSupplier source, Charset textCharset, DataFlavor... flavors) {
+        this.source = Objects.requireNonNull(source, "the source cannot be null");
+        this.textCharset = Objects.requireNonNullElse(textCharset, StandardCharsets.UTF_8);
+        converters = new LinkedHashMap<>();
+        cache = new ConcurrentHashMap<>();
+        if (flavors != null) {
+            for (var flavor : flavors) {
+                addFlavor(flavor);
+            }
+        }
+    }
+
+    /**
+     * creates a new Transferable that reads its data from the provided channel
+     * source.
+     *
+     * @param source the supplier of the data.
+     * @param textCharset the character set of the data, used when a text
+     * representation is requested. if null UTF-8 is assumed.
+     * @param flavors the flavors to offer in order of preference.
+     * @return a new Transferable.
+     */
+    public static LazyTransferable ofChannel(ChannelSupplier source, Charset textCharset, DataFlavor... flavors) {
+        Objects.requireNonNull(source, "the source cannot be null");
+        return new LazyTransferable(() -> Channels.newInputStream(source.open()), textCharset, flavors);
+    }
+
+    /**
+     * offers the provided flavor using the default conversion for its
+     * representation class.
+     *
+     * @param flavor the flavor to offer
+     * @return this instance.
+     * @throws IllegalArgumentException if there is no default conversion for
+     * the flavor representation class.
+     */
+    public final LazyTransferable addFlavor(DataFlavor flavor) {
+        Objects.requireNonNull(flavor, "the flavor cannot be null");
+        if (!hasDefaultConversion(flavor)) {
+            throw new IllegalArgumentException("there is no default conversion for: "
+                    + flavor.getRepresentationClass().getName());
+        }
+        return addFlavor(flavor, this::defaultConversion);
+    }
+
+    /**
+     * offers the provided flavor using the provided conversion.
+     *
+     * @param flavor the flavor to offer
+     * @param converter the conversion from the source data into the flavor
+     * representation.
+     * @return this instance.
+     */
+    public final synchronized LazyTransferable addFlavor(DataFlavor flavor, FlavorConverter converter) {
+        Objects.requireNonNull(flavor, "the flavor cannot be null");
+        Objects.requireNonNull(converter, "the converter cannot be null");
+        converters.put(flavor, converter);
+        cache.remove(flavor);
+        return this;
+    }
+
+    @Override
+    public synchronized DataFlavor[] getTransferDataFlavors() {
+        return converters.keySet().toArray(DataFlavor[]::new);
+    }
+
+    @Override
+    public synchronized boolean isDataFlavorSupported(DataFlavor flavor) {
+        return converters.containsKey(flavor);
+    }
+
+    @Override
+    public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+        FlavorConverter converter;
+        synchronized (this) {
+            converter = converters.get(flavor);
+        }
+        if (converter == null) {
+            throw new UnsupportedFlavorException(flavor);
+        }
+        var cached = cache.get(flavor);
+        if (cached == null) {
+            cached = converter.convert(flavor, source);
+            if (cached == null) {
+                throw new IOException("the conversion for the flavor provided no data");
+            }
+            //streams are single use. they cannot be cached.
+            if (cached instanceof Closeable) {
+                return cached;
+            }
+            var previous = cache.putIfAbsent(flavor, cached);
+            cached = previous != null ? previous : cached;
+        }
+        return shareable(cached);
+    }
+
+    /**
+     * drops the cached conversions. the data will be produced again from the
+     * source if requested.
+     */
+    public void release() {
+        cache.clear();
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Conversions">
+    /**
+     * check if the flavor representation class has a default conversion.
+     *
+     * @param flavor the flavor to check
+     * @return true if {@link #defaultConversion} can produce it.
+     */
+    private static boolean hasDefaultConversion(DataFlavor flavor) {
+        var type = flavor.getRepresentationClass();
+        return flavor.isRepresentationClassInputStream()
+                || flavor.isRepresentationClassReader()
+                || flavor.isRepresentationClassByteBuffer()
+                || flavor.isRepresentationClassCharBuffer()
+                || type == ReadableByteChannel.class
+                || type == byte[].class
+                || type == String.class;
+    }
+
+    /**
+     * the default conversion from the source into the flavor representation
+     * class.
+     */
+    private Object defaultConversion(DataFlavor flavor, StreamSupplier supplier) throws IOException {
+        var type = flavor.getRepresentationClass();
+        if (flavor.isRepresentationClassInputStream()) {
+            var flavorCharset = charsetOf(flavor);
+            if (flavorCharset == null || flavorCharset.equals(textCharset)) {
+                return supplier.open();
+            }
+            //the receiver expects the text on other encoding. transcoded as it is read.
+            return new TranscodingInputStream(supplier.open(), textCharset, flavorCharset);
+        }
+        if (flavor.isRepresentationClassReader()) {
+            return new InputStreamReader(supplier.open(), textCharset);
+        }
+        if (type == ReadableByteChannel.class) {
+            return Channels.newChannel(supplier.open());
+        }
+        if (flavor.isRepresentationClassByteBuffer()) {
+            return ByteBuffer.wrap(readAll(supplier));
+        }
+        if (type == byte[].class) {
+            return readAll(supplier);
+        }
+        if (type == String.class) {
+            return toText(supplier);
+        }
+        if (flavor.isRepresentationClassCharBuffer()) {
+            return CharBuffer.wrap(toText(supplier));
+        }
+        throw new IOException("unsupported representation: " + type.getName());
+    }
+
+    /**
+     * the cached values should not be modified by the receiver. provide a
+     * view or copy when the value is mutable.
+     */
+    private static Object shareable(Object value) {
+        if (value instanceof ByteBuffer buffer) {
+            return buffer.asReadOnlyBuffer();
+        } else if (value instanceof CharBuffer buffer) {
+            return buffer.asReadOnlyBuffer();
+        } else if (value instanceof byte[] array) {
+            return array.clone();
+        }
+        return value;
+    }
+
+    private String toText(StreamSupplier supplier) throws IOException {
+        //if we already have the text. lets reuse it.
+        var text = cache.get(DataFlavor.stringFlavor);
+        if (text instanceof String str) {
+            return str;
+        }
+        return new String(readAll(supplier), textCharset);
+    }
+
+    private static byte[] readAll(StreamSupplier supplier) throws IOException {
+        try (InputStream stream = supplier.open()) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private static Charset charsetOf(DataFlavor flavor) {
+        if (!"text".equals(flavor.getPrimaryType())) {
+            return null;
+        }
+        var name = flavor.getParameter("charset");
+        if (name == null || !Charset.isSupported(name)) {
+            return null;
+        }
+        return Charset.forName(name);
+    }
+    //</editor-fold>
+}
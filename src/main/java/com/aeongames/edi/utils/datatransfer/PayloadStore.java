@@ -0,0 +1,870 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.Objects;
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.nio.file.Files;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.MappedByteBuffer;
+import java.security.MessageDigest;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+import java.security.NoSuchAlgorithmException;
+import com.aeongames.edi.utils.common.XXHash64;
+import com.aeongames.edi.utils.common.ByteUtils;
+import com.aeongames.edi.utils.common.BufferPool;
+import com.aeongames.edi.utils.error.LoggingHelper;
+
+/**
+ * a local content addressed store for transfer payloads. a payload is keyed
+ * by the SHA-256 of its content. thus the same content captured by several
+ * flavors or events is written once and the disk used scales with the unique
+ * content rather than with the amount of events.
+ * <br>
+ * the payloads are appended (thru a {@link FileChannel}) to a single segment
+ * file on the store directory. the segment is never modified in place. the
+ * references are counted: {@link #put(ByteBuffer)} of a content already
+ * stored only appends a small reference record, and {@link #release(Key)}
+ * drops one. payloads without references are garbage until
+ * {@link #compact()} rewrites the segment with the live ones.
+ * <br>
+ * the in memory index is a open addressing table of primitive arrays. (about
+ * 24 bytes per payload) the digests are not kept on memory but read from the
+ * segment when a fingerprint matches. the reads are zero copy. the segment is
+ * memory mapped and {@link #get(Key)} returns a slice of the mapping.
+ * <br>
+ * each record also holds the xxHash64 of its data. the last record is
+ * checked when the store is opened (a crash can leave it torn) and all of
+ * them by {@link #verify()}.
+ * <br>
+ * the writes are not forced to the disk until {@link #sync()} or
+ * {@link #close()}. this class is thread safe.
+ *
+ * @author Eduardo Vindas
+ */
+public final class PayloadStore implements Closeable {
+
+    /**
+     * the key of a payload. the SHA-256 of its content.
+     */
+    public static final class Key {
+
+        private final byte[] Digest;
+
+        private Key(byte[] digest) {
+            Digest = digest;
+        }
+
+        /**
+         * parses a key from its hexadecimal form. see {@link #toString()}
+         *
+         * @param hex the 64 hexadecimal digits of the digest
+         * @return the key
+         * @throws NumberFormatException if the value is not a SHA-256 digest
+         * in hexadecimal.
+         */
+        public static Key parse(CharSequence hex) {
+            Objects.requireNonNull(hex, "the key cannot be null");
+            if (hex.length() != DIGEST_LENGTH * 2) {
+                throw new NumberFormatException("a key has " + DIGEST_LENGTH * 2 + " hexadecimal digits");
+            }
+            var digest = new byte[DIGEST_LENGTH];
+            ByteUtils.decodeHex(hex, 0, hex.length(), digest, 0);
+            return new Key(digest);
+        }
+
+        /**
+         * @return a copy of the digest.
+         */
+        public byte[] toByteArray() {
+            return Digest.clone();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key other && Arrays.equals(Digest, other.Digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(ByteUtils.fingerprint64(Digest));
+        }
+
+        /**
+         * @return the digest in lower case hexadecimal.
+         */
+        @Override
+        public String toString() {
+            return ByteUtils.toHexString(Digest, false);
+        }
+    }
+
+    /**
+     * the usage of the store.
+     *
+     * @param payloads the payloads with references
+     * @param liveBytes the size of the payloads with references
+     * @param garbageBytes the segment bytes {@link #compact()} would reclaim
+     * @param segmentSize the size of the segment
+     * @param dedupHits the times a content was already stored
+     */
+    public static record Stats(int payloads, long liveBytes, long garbageBytes, long segmentSize, long dedupHits) {
+
+        /**
+         * @return the fraction of the segment that is garbage.
+         */
+        public double garbageRatio() {
+            return segmentSize == 0 ? 0d : (double) garbageBytes / segmentSize;
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Format">
+    /*
+     * data record: magic, references, length, xxHash64, digest, data, pad to 8
+     * reference record: magic, delta, digest
+     * the magic of the record after the last is always zero. thus data left
+     * behind the end (a stream that turned to be a duplicate) is not read back.
+     */
+    private static final int DATA_MAGIC = 0x50415944; //PAYD
+    private static final int REFERENCE_MAGIC = 0x50524546; //PREF
+    private static final int DIGEST_LENGTH = 32;
+    private static final int DATA_HEADER = 24 + DIGEST_LENGTH;
+    private static final int REFERENCE_RECORD = 8 + DIGEST_LENGTH;
+    private static final int REFERENCES_OFFSET = 4, LENGTH_OFFSET = 8, CHECKSUM_OFFSET = 16, DIGEST_OFFSET = 24;
+    private static final int ALIGNMENT = 8;
+    /**
+     * the largest payload. a payload is handed as a single buffer.
+     */
+    public static final int MAX_PAYLOAD = Integer.MAX_VALUE - DATA_HEADER - ALIGNMENT;
+    //</editor-fold>
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final String LOGGERNAME = "DataTransferLogger";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.dat");
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    //<editor-fold defaultstate="collapsed" desc="Instance">
+    private final Path Directory;
+    private final Index Entries = new Index();
+    private final ByteBuffer Zeros = ByteBuffer.allocate(ALIGNMENT * 2);
+    private FileChannel channel;
+    private long generation;
+    /**
+     * the end of the last record. the file can be longer. (the terminator of
+     * the last record or the data of a stream that was a duplicate)
+     */
+    private long end;
+    private MappedByteBuffer mapped;
+    private long dedupHits = 0;
+    private boolean closed = false;
+    //</editor-fold>
+
+    /**
+     * opens (or creates) the store on the directory. a torn record left by a
+     * crash is dropped.
+     *
+     * @param directory the directory of the store
+     * @throws IOException if the segment cannot be opened or read
+     */
+    public PayloadStore(Path directory) throws IOException {
+        Directory = Objects.requireNonNull(directory, "the directory cannot be null");
+        Files.createDirectories(directory);
+        generation = cleanDirectory();
+        channel = FileChannel.open(segmentPath(generation, false), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Open">
+    /**
+     * removes the unfinished compactions and the segments replaced by one.
+     *
+     * @return the generation of the current segment.
+     */
+    private long cleanDirectory() throws IOException {
+        long current = -1;
+        var segments = new ArrayList<Path>();
+        try (var files = Files.list(Directory)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                var name = file.getFileName().toString();
+                if (name.startsWith("segment-") && name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                var matcher = SEGMENT_NAME.matcher(name);
+                if (matcher.matches()) {
+                    segments.add(file);
+                    current = Math.max(current, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        var latest = segmentPath(Math.max(0, current), false);
+        for (var segment : segments) {
+            if (!segment.equals(latest)) {
+                deleteSegment(segment);
+            }
+        }
+        return Math.max(0, current);
+    }
+
+    private Path segmentPath(long generation, boolean temporary) {
+        return Directory.resolve("segment-" + generation + (temporary ? ".tmp" : ".dat"));
+    }
+
+    private static void deleteSegment(Path segment) {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException ex) {
+            //the file can be still mapped (i.e on Windows). retried on the next open.
+            LoggingHelper.getLogger(LOGGERNAME).log(Level.FINE, "unable to delete a replaced segment", ex);
+        }
+    }
+
+    /**
+     * rebuilds the index from the segment. if the data of the last record
+     * does not match its checksum it is dropped along whatever follows it.
+     */
+    private void recover() throws IOException {
+        var limit = channel.size();
+        while (true) {
+            Entries.clear();
+            var last = scan(limit);
+            if (last < 0 || checksumMatchesOnDisk(last)) {
+                break;
+            }
+            LoggingHelper.getLogger(LOGGERNAME).log(Level.WARNING,
+                    "the last payload of the store is torn. dropping it at {0}", last);
+            limit = last;
+        }
+        //drops the torn records. nothing is mapped yet, thus the file can be truncated.
+        channel.truncate(end);
+    }
+
+    /**
+     * checks the data of the record against its checksum reading thru the
+     * channel. used before the segment is mapped.
+     */
+    private boolean checksumMatchesOnDisk(long offset) throws IOException {
+        var header = ByteBuffer.allocate(DATA_HEADER);
+        readFully(header, offset);
+        final long length = header.getLong(LENGTH_OFFSET);
+        var checksum = new XXHash64();
+        var pool = BufferPool.shared();
+        var chunk = pool.acquireArray(CHUNK_SIZE);
+        try {
+            for (long read = 0; read < length;) {
+                var buffer = ByteBuffer.wrap(chunk, 0, (int) Math.min(chunk.length, length - read));
+                readFully(buffer, offset + DATA_HEADER + read);
+                checksum.update(chunk, 0, buffer.position());
+                read += buffer.position();
+            }
+        } finally {
+            pool.release(chunk);
+        }
+        return checksum.getValue() == header.getLong(CHECKSUM_OFFSET);
+    }
+
+    /**
+     * reads the records up to the limit. stops at the first that is not
+     * complete.
+     *
+     * @return the offset of the last data record or -1 if there are none.
+     */
+    private long scan(long limit) throws IOException {
+        var header = ByteBuffer.allocate(DATA_HEADER);
+        long position = 0, last = -1;
+        while (position + REFERENCE_RECORD <= limit) {
+            header.clear();
+            readFully(header, position);
+            var magic = header.getInt(0);
+            if (magic == DATA_MAGIC) {
+                var length = header.getLong(LENGTH_OFFSET);
+                if (length < 0 || length > MAX_PAYLOAD || position + DATA_HEADER + length > limit) {
+                    break;
+                }
+                var digest = new byte[DIGEST_LENGTH];
+                header.get(DIGEST_OFFSET, digest);
+                if (find(digest) < 0) {
+                    Entries.add(ByteUtils.fingerprint64(digest), position, (int) length, header.getInt(REFERENCES_OFFSET));
+                }
+                last = position;
+                position += align(DATA_HEADER + length);
+            } else if (magic == REFERENCE_MAGIC) {
+                var digest = new byte[DIGEST_LENGTH];
+                header.get(8, digest);
+                var slot = find(digest);
+                if (slot >= 0) {
+                    Entries.References[slot] = Math.max(0, Entries.References[slot] + header.getInt(REFERENCES_OFFSET));
+                }
+                position += REFERENCE_RECORD;
+            } else {
+                break;
+            }
+        }
+        end = position;
+        return last;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                //only a data record header can be shorter than the segment tail. it is zero.
+                while (buffer.hasRemaining()) {
+                    buffer.put((byte) 0);
+                }
+            }
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Store">
+    /**
+     * stores the remaining bytes of the buffer. (the position is not
+     * changed) if the content is already stored only a reference is added.
+     *
+     * @param data the payload
+     * @return the key of the payload
+     * @throws IOException if the segment cannot be written
+     */
+    public synchronized Key put(ByteBuffer data) throws IOException {
+        checkOpen();
+        var input = data.duplicate();
+        if (input.remaining() > MAX_PAYLOAD) {
+            throw new IOException("the payload is too large: " + input.remaining());
+        }
+        var digest = newDigest();
+        digest.update(input.duplicate());
+        var key = new Key(digest.digest());
+        var slot = find(key.Digest);
+        if (slot >= 0) {
+            addReferences(slot, key.Digest, 1);
+            dedupHits++;
+            return key;
+        }
+        final int length = input.remaining();
+        var header = header(key.Digest, length, XXHash64.hash(input));
+        final long start = end;
+        write(header, start);
+        write(input, start + DATA_HEADER);
+        commitData(key.Digest, start, length);
+        return key;
+    }
+
+    /**
+     * stores the array. see {@link #put(ByteBuffer)}
+     *
+     * @param data the payload
+     * @return the key of the payload
+     * @throws IOException if the segment cannot be written
+     */
+    public Key put(byte[] data) throws IOException {
+        return put(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * stores the stream until its end. the data is written while read thus
+     * it is never held whole. if the content turns out to be already stored
+     * the data written is discarded and only a reference is added. the stream
+     * is not closed.
+     *
+     * @param in the payload
+     * @return the key of the payload
+     * @throws IOException if the stream fails, is larger than
+     * {@link #MAX_PAYLOAD} or the segment cannot be written
+     */
+    public synchronized Key put(InputStream in) throws IOException {
+        checkOpen();
+        Objects.requireNonNull(in, "the stream cannot be null");
+        var digest = newDigest();
+        var checksum = new XXHash64();
+        var pool = BufferPool.shared();
+        var chunk = pool.acquireArray(CHUNK_SIZE);
+        final long start = end;
+        long length = 0;
+        try {
+            int read;
+            while ((read = in.read(chunk, 0, chunk.length)) >= 0) {
+                if (length + read > MAX_PAYLOAD) {
+                    throw new IOException("the payload is too large");
+                }
+                digest.update(chunk, 0, read);
+                checksum.update(chunk, 0, read);
+                //past the end. nothing refers to it until the header is written.
+                write(ByteBuffer.wrap(chunk, 0, read), start + DATA_HEADER + length);
+                length += read;
+            }
+        } finally {
+            pool.release(chunk);
+        }
+        var key = new Key(digest.digest());
+        var slot = find(key.Digest);
+        if (slot >= 0) {
+            addReferences(slot, key.Digest, 1);
+            dedupHits++;
+            return key;
+        }
+        write(header(key.Digest, length, checksum.getValue()), start);
+        commitData(key.Digest, start, (int) length);
+        return key;
+    }
+
+    /**
+     * adds a reference to a stored payload.
+     *
+     * @param key the key of the payload
+     * @return false if the payload is not stored or has no references.
+     * @throws IOException if the segment cannot be written
+     */
+    public synchronized boolean retain(Key key) throws IOException {
+        checkOpen();
+        var slot = find(key.Digest);
+        if (slot < 0 || Entries.References[slot] == 0) {
+            return false;
+        }
+        addReferences(slot, key.Digest, 1);
+        return true;
+    }
+
+    /**
+     * drops a reference of a payload. a payload without references is no
+     * longer returned and its space is reclaimed by {@link #compact()}
+     *
+     * @param key the key of the payload
+     * @return false if the payload is not stored or has no references.
+     * @throws IOException if the segment cannot be written
+     */
+    public synchronized boolean release(Key key) throws IOException {
+        checkOpen();
+        var slot = find(key.Digest);
+        if (slot < 0 || Entries.References[slot] == 0) {
+            return false;
+        }
+        addReferences(slot, key.Digest, -1);
+        return true;
+    }
+
+    private static ByteBuffer header(byte[] digest, long length, long checksum) {
+        return ByteBuffer.allocate(DATA_HEADER)
+                .putInt(DATA_MAGIC)
+                .putInt(1)
+                .putLong(length)
+                .putLong(checksum)
+                .put(digest)
+                .flip();
+    }
+
+    /**
+     * closes the data record written at the end and indexes it.
+     */
+    private void commitData(byte[] digest, long start, int length) throws IOException {
+        end = start + align(DATA_HEADER + (long) length);
+        writeTerminator(start + DATA_HEADER + length);
+        Entries.add(ByteUtils.fingerprint64(digest), start, length, 1);
+    }
+
+    private void addReferences(int slot, byte[] digest, int delta) throws IOException {
+        var record = ByteBuffer.allocate(REFERENCE_RECORD)
+                .putInt(REFERENCE_MAGIC)
+                .putInt(delta)
+                .put(digest)
+                .flip();
+        write(record, end);
+        end += REFERENCE_RECORD;
+        writeTerminator(end);
+        Entries.References[slot] += delta;
+    }
+
+    /**
+     * pads the record at the position to the alignment and zeroes the magic
+     * of the next.
+     */
+    private void writeTerminator(long position) throws IOException {
+        var padding = (int) (align(position) - position);
+        write(Zeros.duplicate().limit(padding + ALIGNMENT), position);
+    }
+
+    private void write(ByteBuffer data, long position) throws IOException {
+        while (data.hasRemaining()) {
+            position += channel.write(data, position);
+        }
+    }
+
+    private static long align(long value) {
+        return (value + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            //all the Java platforms provide it.
+            throw new IllegalStateException(ALGORITHM + " is not available", ex);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Read">
+    /**
+     * @param key the key of the payload
+     * @return true if the payload is stored and has references.
+     */
+    public synchronized boolean contains(Key key) {
+        if (closed) {
+            return false;
+        }
+        try {
+            var slot = find(key.Digest);
+            return slot >= 0 && Entries.References[slot] > 0;
+        } catch (IOException ex) {
+            LoggingHelper.getLogger(LOGGERNAME).log(Level.WARNING, "unable to read the segment", ex);
+            return false;
+        }
+    }
+
+    /**
+     * returns the payload without copying it. the buffer is a read only
+     * slice of the segment mapping. it stays valid after the payload is
+     * released, the store compacted or closed. (the mapping is kept until the
+     * buffer is collected)
+     *
+     * @param key the key of the payload
+     * @return the payload or null if not stored or without references.
+     * @throws IOException if the segment cannot be mapped
+     */
+    public synchronized ByteBuffer get(Key key) throws IOException {
+        checkOpen();
+        var slot = find(key.Digest);
+        if (slot < 0 || Entries.References[slot] == 0) {
+            return null;
+        }
+        return region(Entries.Offsets[slot] + DATA_HEADER, Entries.Lengths[slot]);
+    }
+
+    /**
+     * @param key the key of the payload
+     * @return a stream over the payload or null if not stored or without
+     * references. see {@link #get(Key)}
+     * @throws IOException if the segment cannot be mapped
+     */
+    public InputStream openStream(Key key) throws IOException {
+        var data = get(key);
+        return data == null ? null : Channels.newInputStream(new ByteBufferChannel(data));
+    }
+
+    /**
+     * checks the data of all the payloads with references against their
+     * checksum.
+     *
+     * @return the keys of the payloads that do not match. (empty if all do)
+     * @throws IOException if the segment cannot be read
+     */
+    public synchronized List<Key> verify() throws IOException {
+        checkOpen();
+        var corrupt = new ArrayList<Key>();
+        for (int slot = 0; slot < Entries.Offsets.length; slot++) {
+            var offset = Entries.Offsets[slot];
+            if (offset >= 0 && Entries.References[slot] > 0 && !checksumMatches(offset)) {
+                var digest = new byte[DIGEST_LENGTH];
+                region(offset + DIGEST_OFFSET, DIGEST_LENGTH).get(digest);
+                corrupt.add(new Key(digest));
+            }
+        }
+        return corrupt;
+    }
+
+    private boolean checksumMatches(long offset) throws IOException {
+        var header = region(offset, DATA_HEADER);
+        var data = region(offset + DATA_HEADER, (int) header.getLong(LENGTH_OFFSET));
+        return XXHash64.hash(data) == header.getLong(CHECKSUM_OFFSET);
+    }
+
+    /**
+     * @return the slot of the digest on the index or -1.
+     */
+    private int find(byte[] digest) throws IOException {
+        var expected = ByteBuffer.wrap(digest);
+        IOException[] failure = {null};
+        var slot = Entries.find(ByteUtils.fingerprint64(digest), offset -> {
+            try {
+                return ByteUtils.equals(readDigest(offset), expected);
+            } catch (IOException ex) {
+                failure[0] = ex;
+                return false;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return slot;
+    }
+
+    /**
+     * the digest of the data record at the offset. read from the mapping if
+     * it covers the record or thru the channel. (i.e while recovering, when
+     * nothing is mapped yet)
+     */
+    private ByteBuffer readDigest(long offset) throws IOException {
+        final long position = offset + DIGEST_OFFSET;
+        if (mapped != null && position + DIGEST_LENGTH <= mapped.capacity()) {
+            return mapped.slice((int) position, DIGEST_LENGTH);
+        }
+        var digest = ByteBuffer.allocate(DIGEST_LENGTH);
+        readFully(digest, position);
+        return digest.flip();
+    }
+
+    /**
+     * a read only slice of the segment. the segment is mapped whole up to
+     * the end of the records while it fits a mapping. (and remapped once the
+     * region is past it) beyond that the region is mapped alone. the mapping
+     * never reaches past the file, thus it never grows it.
+     */
+    private ByteBuffer region(long position, int length) throws IOException {
+        final long required = position + length;
+        if (required > Integer.MAX_VALUE) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        }
+        if (mapped == null || required > mapped.capacity()) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(Integer.MAX_VALUE, end));
+        }
+        return mapped.slice((int) position, length);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Maintenance">
+    /**
+     * @return the usage of the store.
+     */
+    public synchronized Stats getStats() {
+        int payloads = 0;
+        long live = 0, records = 0;
+        for (int slot = 0; slot < Entries.Offsets.length; slot++) {
+            if (Entries.Offsets[slot] >= 0 && Entries.References[slot] > 0) {
+                payloads++;
+                live += Entries.Lengths[slot];
+                records += align(DATA_HEADER + (long) Entries.Lengths[slot]);
+            }
+        }
+        return new Stats(payloads, live, end - records, end, dedupHits);
+    }
+
+    /**
+     * compacts the store if the garbage exceeds the ratio. see
+     * {@link #compact()}
+     *
+     * @param garbageRatio the fraction of the segment (0 to 1)
+     * @return the bytes reclaimed. 0 if not compacted.
+     * @throws IOException if the new segment cannot be written
+     */
+    public synchronized long compact(double garbageRatio) throws IOException {
+        return getStats().garbageRatio() > garbageRatio ? compact() : 0;
+    }
+
+    /**
+     * rewrites the segment with the payloads that have references. (one
+     * record each, along its reference count) the new segment is written
+     * aside and replaces the current one once complete. thus a crash leaves
+     * either of them whole.
+     *
+     * @return the bytes reclaimed.
+     * @throws IOException if the new segment cannot be written
+     */
+    public synchronized long compact() throws IOException {
+        checkOpen();
+        var live = new ArrayList<Integer>();
+        for (int slot = 0; slot < Entries.Offsets.length; slot++) {
+            if (Entries.Offsets[slot] >= 0 && Entries.References[slot] > 0) {
+                live.add(slot);
+            }
+        }
+        //on segment order. the copy reads the old segment sequentially.
+        live.sort((a, b) -> Long.compare(Entries.Offsets[a], Entries.Offsets[b]));
+        var compacted = new Index();
+        var temporary = segmentPath(generation + 1, true);
+        long position = 0, written = 0;
+        try (var out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            var header = ByteBuffer.allocate(DATA_HEADER);
+            for (int slot : live) {
+                final long offset = Entries.Offsets[slot];
+                final int length = Entries.Lengths[slot], references = Entries.References[slot];
+                header.clear().put(region(offset, DATA_HEADER)).flip();
+                header.putInt(REFERENCES_OFFSET, references);
+                while (header.hasRemaining()) {
+                    out.write(header, position + header.position());
+                }
+                //zero copy from segment to segment.
+                long copied = 0;
+                out.position(position + DATA_HEADER);
+                while (copied < length) {
+                    copied += channel.transferTo(offset + DATA_HEADER + copied, length - copied, out);
+                }
+                compacted.add(ByteUtils.fingerprint64(header.slice(DIGEST_OFFSET, DIGEST_LENGTH)), position, length, references);
+                written = position + DATA_HEADER + length;
+                position += align(DATA_HEADER + (long) length);
+            }
+            //the padding of the last record. the file ends there. (as after recover)
+            var padding = ByteBuffer.allocate((int) (position - written));
+            while (padding.hasRemaining()) {
+                out.write(padding, written + padding.position());
+            }
+            out.force(true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex;
+        }
+        var segment = segmentPath(generation + 1, false);
+        Files.move(temporary, segment, StandardCopyOption.ATOMIC_MOVE);
+        var previous = segmentPath(generation, false);
+        var reclaimed = end - position;
+        channel.close();
+        mapped = null;
+        channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        generation++;
+        end = position;
+        Entries.replace(compacted);
+        deleteSegment(previous);
+        return reclaimed;
+    }
+
+    /**
+     * forces the segment to the disk.
+     *
+     * @throws IOException if the segment cannot be forced
+     */
+    public synchronized void sync() throws IOException {
+        checkOpen();
+        channel.force(false);
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("the store is closed");
+        }
+    }
+
+    /**
+     * forces the segment to the disk and closes it. the buffers returned by
+     * {@link #get(Key)} remain valid. the segment is not truncated (it can
+     * be mapped) the bytes past the records are dropped on the next open.
+     *
+     * @throws IOException if the segment fails to close
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        mapped = null;
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+    //</editor-fold>
+
+    /**
+     * the index. a open addressing (linear probing) table on parallel
+     * arrays keyed by the digest fingerprint. the payloads are removed only
+     * by a compaction that replaces the whole table.
+     */
+    private static final class Index {
+
+        private static final int INITIAL_CAPACITY = 64;
+        private long[] Fingerprints, Offsets;
+        private int[] Lengths, References;
+        private int size;
+
+        private Index() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            Fingerprints = new long[capacity];
+            Offsets = new long[capacity];
+            Lengths = new int[capacity];
+            References = new int[capacity];
+            //a negative offset marks a free slot.
+            Arrays.fill(Offsets, -1);
+            size = 0;
+        }
+
+        private void clear() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void replace(Index other) {
+            Fingerprints = other.Fingerprints;
+            Offsets = other.Offsets;
+            Lengths = other.Lengths;
+            References = other.References;
+            size = other.size;
+        }
+
+        /**
+         * @param sameDigest tells if the record at a offset has the digest.
+         * (the fingerprints can collide)
+         * @return the slot or -1
+         */
+        private int find(long fingerprint, LongPredicate sameDigest) {
+            final int mask = Offsets.length - 1;
+            //the fingerprint is a digest. its bits are already uniform.
+            for (int slot = (int) fingerprint & mask; Offsets[slot] >= 0; slot = (slot + 1) & mask) {
+                if (Fingerprints[slot] == fingerprint && sameDigest.test(Offsets[slot])) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void add(long fingerprint, long offset, int length, int references) {
+            if ((size + 1) * 4L > Offsets.length * 3L) {
+                grow();
+            }
+            final int mask = Offsets.length - 1;
+            int slot = (int) fingerprint & mask;
+            while (Offsets[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            Fingerprints[slot] = fingerprint;
+            Offsets[slot] = offset;
+            Lengths[slot] = length;
+            References[slot] = references;
+            size++;
+        }
+
+        private void grow() {
+            long[] fingerprints = Fingerprints, offsets = Offsets;
+            int[] lengths = Lengths, references = References;
+            allocate(offsets.length * 2);
+            for (int slot = 0; slot < offsets.length; slot++) {
+                if (offsets[slot] >= 0) {
+                    add(fingerprints[slot], offsets[slot], lengths[slot], references[slot]);
+                }
+            }
+        }
+    }
+}
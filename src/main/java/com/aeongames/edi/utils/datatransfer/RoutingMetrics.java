@@ -0,0 +1,186 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.awt.datatransfer.DataFlavor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * counters collected by a {@link FlavorRouter} while dispatching transfers to
+ * its handlers. the counters are updated without locking and thus can be read
+ * at any time from any thread. note the values are not a consistent snapshot
+ * as they might change while being read.
+ *
+ * @author Eduardo Vindas
+ */
+public final class RoutingMetrics {
+
+    /**
+     * the amount of transfers the router was asked to dispatch.
+     */
+    private final LongAdder routed = new LongAdder();
+    /**
+     * the amount of times a handler was called.
+     */
+    private final LongAdder attempts = new LongAdder();
+    /**
+     * the amount of transfers that a handler reported as handled.
+     */
+    private final LongAdder handled = new LongAdder();
+    /**
+     * the amount of transfers that no handler was able to handle.
+     */
+    private final LongAdder unhandled = new LongAdder();
+    /**
+     * the amount of handler calls that ended on a error.
+     */
+    private final LongAdder failures = new LongAdder();
+    /**
+     * the amount of handlers skipped as they declined the sniffed content.
+     */
+    private final LongAdder sniffSkips = new LongAdder();
+    /**
+     * the accumulated time in nanoseconds spent dispatching transfers.
+     */
+    private final LongAdder routingNanos = new LongAdder();
+    /**
+     * the amount of times each flavor was negotiated with a handler.
+     */
+    private final ConcurrentHashMap<DataFlavor, LongAdder> negotiated = new ConcurrentHashMap<>();
+
+    /**
+     * package private, only the router creates metrics.
+     */
+    RoutingMetrics() {
+    }
+
+    void recordRouted(long elapsedNanos) {
+        routed.increment();
+        routingNanos.add(elapsedNanos);
+    }
+
+    void recordAttempt() {
+        attempts.increment();
+    }
+
+    void recordHandled() {
+        handled.increment();
+    }
+
+    void recordUnhandled() {
+        unhandled.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    void recordSniffSkip() {
+        sniffSkips.increment();
+    }
+
+    void recordNegotiated(DataFlavor flavor) {
+        negotiated.computeIfAbsent(flavor, (t) -> new LongAdder()).increment();
+    }
+
+    /**
+     * @return the amount of transfers the router was asked to dispatch.
+     */
+    public long getRoutedCount() {
+        return routed.sum();
+    }
+
+    /**
+     * @return the amount of times a handler was called. a value larger than
+     * {@link #getRoutedCount()} means handlers declined and the router had to
+     * fall back to the next compatible handler.
+     */
+    public long getAttemptCount() {
+        return attempts.sum();
+    }
+
+    /**
+     * @return the amount of transfers that were handled.
+     */
+    public long getHandledCount() {
+        return handled.sum();
+    }
+
+    /**
+     * @return the amount of transfers that no handler was able to handle.
+     */
+    public long getUnhandledCount() {
+        return unhandled.sum();
+    }
+
+    /**
+     * @return the amount of handler calls that ended on a error.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * @return the amount of handlers skipped (without reading the data) as
+     * they declined the sniffed content.
+     */
+    public long getSniffSkipCount() {
+        return sniffSkips.sum();
+    }
+
+    /**
+     * @return the accumulated time in nanoseconds spent dispatching transfers.
+     */
+    public long getRoutingNanos() {
+        return routingNanos.sum();
+    }
+
+    /**
+     * returns how many times each flavor was negotiated with a handler. this
+     * tells which representation the handlers actually read.
+     *
+     * @return a copy of the negotiated flavors and their counts.
+     */
+    public Map<DataFlavor, Long> getNegotiatedFlavors() {
+        var copy = new HashMap<DataFlavor, Long>();
+        negotiated.forEach((flavor, count) -> copy.put(flavor, count.sum()));
+        return copy;
+    }
+
+    /**
+     * resets all the counters to zero.
+     */
+    public void reset() {
+        routed.reset();
+        attempts.reset();
+        handled.reset();
+        unhandled.reset();
+        failures.reset();
+        sniffSkips.reset();
+        routingNanos.reset();
+        negotiated.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingMetrics{routed=" + getRoutedCount()
+                + ", attempts=" + getAttemptCount()
+                + ", handled=" + getHandledCount()
+                + ", unhandled=" + getUnhandledCount()
+                + ", failures=" + getFailureCount()
+                + ", sniffSkips=" + getSniffSkipCount()
+                + ", routingNanos=" + getRoutingNanos() + '}';
+    }
+}
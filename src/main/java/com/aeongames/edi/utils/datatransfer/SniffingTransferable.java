@@ -0,0 +1,144 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.util.HashMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.nio.channels.Channels;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.nio.channels.ReadableByteChannel;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import java.awt.datatransfer.UnsupportedFlavorException;
+
+/**
+ * a {@link Transferable} wrapper used by {@link FlavorRouter} while
+ * dispatching with content sniffing. the data of a flavor is opened once to
+ * sniff it and kept (the streams reset to the start) for the next
+ * {@link #getTransferData(DataFlavor)} call. thus the handler reads the same
+ * data that was sniffed and the source is not opened twice.
+ * <br>
+ * only flavors represented as {@code InputStream}, {@code ReadableByteChannel}
+ * , {@code ByteBuffer} or {@code byte[]} are sniffed. the data kept and not
+ * handed to a handler is closed by {@link #release()}.
+ * <br>
+ * not thread safe. a instance is used by a single dispatch.
+ *
+ * @author Eduardo Vindas
+ */
+final class SniffingTransferable implements Transferable {
+
+    private static final String LOGGERNAME = "DataTransferLogger";
+    private final Transferable Delegate;
+    /**
+     * the types sniffed by flavor. null if the flavor could not be sniffed.
+     */
+    private final HashMap<DataFlavor, ContentSniffer.ContentType> Sniffed = new HashMap<>();
+    /**
+     * the data opened to sniff and not yet handed over.
+     */
+    private final HashMap<DataFlavor, Object> Pending = new HashMap<>();
+
+    SniffingTransferable(Transferable delegate) {
+        Delegate = delegate;
+    }
+
+    /**
+     * sniffs the data of the flavor. (once per flavor)
+     *
+     * @param flavor the flavor to sniff
+     * @return the type of the content or null if the flavor cannot be
+     * sniffed.
+     */
+    ContentSniffer.ContentType sniff(DataFlavor flavor) {
+        if (Sniffed.containsKey(flavor)) {
+            return Sniffed.get(flavor);
+        }
+        ContentSniffer.ContentType type = null;
+        if (isSniffable(flavor)) {
+            try {
+                var data = Delegate.getTransferData(flavor);
+                InputStream peekable = null;
+                if (data instanceof InputStream stream) {
+                    peekable = ContentSniffer.peekable(stream);
+                    data = peekable;
+                } else if (data instanceof ReadableByteChannel channel) {
+                    peekable = ContentSniffer.peekable(Channels.newInputStream(channel));
+                    data = Channels.newChannel(peekable);
+                }
+                //kept before sniffing. if the sniff fails the data is still handed
+                //over (or closed) instead of leaked and requested again.
+                if (data != null) {
+                    Pending.put(flavor, data);
+                }
+                if (data instanceof byte[] array) {
+                    type = ContentSniffer.sniff(array, 0, array.length);
+                } else if (data instanceof ByteBuffer buffer) {
+                    type = ContentSniffer.sniff(buffer);
+                } else if (peekable != null) {
+                    type = ContentSniffer.sniff(peekable);
+                }
+            } catch (UnsupportedFlavorException | IOException ex) {
+                //the handler will find the same issue. leave it to it.
+                LoggingHelper.getLogger(LOGGERNAME).log(Level.FINE, "unable to sniff the flavor data", ex);
+            }
+        }
+        Sniffed.put(flavor, type);
+        return type;
+    }
+
+    private static boolean isSniffable(DataFlavor flavor) {
+        var representation = flavor.getRepresentationClass();
+        return representation == InputStream.class || representation == ReadableByteChannel.class
+                || representation == ByteBuffer.class || representation == byte[].class;
+    }
+
+    /**
+     * closes the data that was opened to sniff and not handed over.
+     */
+    void release() {
+        for (var data : Pending.values()) {
+            if (data instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException ex) {
+                    LoggingHelper.getLogger(LOGGERNAME).log(Level.FINE, "unable to close the sniffed data", ex);
+                }
+            }
+        }
+        Pending.clear();
+    }
+
+    @Override
+    public DataFlavor[] getTransferDataFlavors() {
+        return Delegate.getTransferDataFlavors();
+    }
+
+    @Override
+    public boolean isDataFlavorSupported(DataFlavor flavor) {
+        return Delegate.isDataFlavorSupported(flavor);
+    }
+
+    /**
+     * returns the data kept from the sniff (once) or reads the flavor from
+     * the wrapped transferable.
+     */
+    @Override
+    public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+        var pending = Pending.remove(flavor);
+        return pending != null ? pending : Delegate.getTransferData(flavor);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright © 2025 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.aeongames.edi.utils.datatransfer;
+
+import java.nio.ByteBuffer;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import com.aeongames.edi.utils.threading.StopSignalProvider;
+
+/**
+ * a {@link FlavorProcessor} that does not read the transfer data by itself.
+ * rather the framework opens the flavor as a stream and pushes the data into
+ * this processor in chunks. thus the implementation can parse the data
+ * incrementally with constant memory.
+ * <br>
+ * the flavor representation class should be a stream
+ * ({@code InputStream} or {@code ReadableByteChannel}) a {@code ByteBuffer} or
+ * a {@code byte[]}. other representations are not handled.
+ * <br>
+ * the {@code StopSignalProvider} is checked between chunks. if a stop is
+ * requested the stream is closed, {@link #abortStream(DataFlavor)} is called
+ * and the transfer is reported as not handled. thus the implementation does
+ * not need to poll for it.
+ * <br>
+ * the call sequence is:
+ * {@link #startStream(DataFlavor)} -&gt;
+ * {@link #processChunk(DataFlavor, ByteBuffer)} (zero or more times) -&gt;
+ * {@link #completeStream(DataFlavor)} or {@link #abortStream(DataFlavor)}
+ *
+ * @author Eduardo Vindas
+ */
+@FunctionalInterface
+public interface StreamingFlavorProcessor extends FlavorProcessor {
+
+    /**
+     * the default size of the chunks pushed into the processor.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * the size desired for the chunks. the last chunk can be smaller.
+     *
+     * @return the chunk size in bytes.
+     */
+    public default int getChunkSize() {
+        return DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * called once the flavor stream is open and before the first chunk.
+     *
+     * @param flavor the flavor that is going to be streamed
+     * @return true to proceed with the stream. false to decline the transfer.
+     * @throws DataTransferException if the processor fails to prepare.
+     */
+    public default boolean startStream(DataFlavor flavor) throws DataTransferException {
+        return true;
+    }
+
+    /**
+     * process the next chunk of data. the chunk is a pooled direct buffer
+     * positioned and limited to the available data. it is only valid for the
+     * duration of this call. thus the implementation <strong>must not</strong>
+     * hold a reference to it.
+     *
+     * @param flavor the flavor being streamed
+     * @param chunk the data read
+     * @return true to continue with the stream. false to abort it.
+     * @throws DataTransferException if the processor fails to process the
+     * data.
+     */
+    public boolean processChunk(DataFlavor flavor, ByteBuffer chunk) throws DataTransferException;
+
+    /**
+     * called once all the data was read.
+     *
+     * @param flavor the flavor that was streamed
+     * @return true if the transfer was handled successfully, false otherwise
+     * @throws DataTransferException if the processor fails to complete.
+     */
+    public default boolean completeStream(DataFlavor flavor) throws DataTransferException {
+        return true;
+    }
+
+    /**
+     * called when the stream was not completed. due a stop request, the
+     * processor declined a chunk, or a error.
+     *
+     * @param flavor the flavor that was streamed
+     */
+    public default void abortStream(DataFlavor flavor) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * opens the flavor stream and push its data into this processor in
+     * chunks.
+     */
+    @Override
+    public default boolean handleFlavor(DataFlavor flavor, StopSignalProvider stopProvider, Transferable transferData) throws DataTransferException {
+        return ChunkPump.pump(this, flavor, stopProvider, transferData);
+    }
+}
@@ -12,10 +12,7 @@
 package com.aeongames.edi.utils.datatransfer.clipboard;
 
 import java.awt.Toolkit;
-import java.util.HashSet;
-import java.util.HashMap;
 import java.util.Objects;
-import java.util.LinkedHashSet;
 import java.util.logging.Level;
 import javax.swing.SwingUtilities;
 import java.awt.HeadlessException;
@@ -28,7 +25,10 @@ import java.awt.datatransfer.ClipboardOwner;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import com.aeongames.edi.utils.error.LoggingHelper;
-import com.aeongames.edi.utils.datatransfer.FlavorHandler;
+import com.aeongames.edi.utils.datatransfer.FlavorRouter;
+import com.aeongames.edi.utils.datatransfer.RoutingMetrics;
+import com.aeongames.edi.utils.datatransfer.FlavorCostModel;
+import com.aeongames.edi.utils.datatransfer.LazyTransferable;
 import com.aeongames.edi.utils.datatransfer.FlavorProcessor;
 import com.aeongames.edi.utils.datatransfer.DataTransferException;
 
@@ -238,24 +238,14 @@ public final class ClipboardService implements Runnable, FlavorListener, Clipboa
     private ArrayBlockingQueue<Clipboard> RequestQueue;
 
     /**
-     * a list of unique values. that contains the Flavors handlers that are
-     * instances that can handle specific flavor(s) of data. from the clipboard.
+     * the routing engine that holds the Flavors handlers that can handle
+     * specific flavor(s) of data. from the clipboard. and dispatch the
+     * clipboard content to them in priority order.
      * <br>
-     * when a change on the Clipboard is to be handled the list (in order) and
-     * check for each handler if they are fit to handle the flavor.
-     * <br>
-     * this process runs in "first come first serve". meaning. that if there are
-     * multiple handlers for the same flavor the one that has registered with
-     * hight priority(first encountered on the list) and is allocated first will
-     * process the data.
-     */
-    private final LinkedHashSet<FlavorHandler> FlavorsListPriority;
-    /**
-     * a mapping for the {@code FlavorHandler} that wrap a
-     * {@code FlavorProcessor} this is required for ease of adding or removing
-     * handlers
+     * if a handler reports the clipboard is busy the dispatch is aborted so
+     * the change can be queued and retried.
      */
-    private final HashMap<FlavorProcessor, FlavorHandler> MapProcessors;
+    private final FlavorRouter Router;
 
     /**
      * an atomic bool that indicates if this instance is the owner of the
@@ -308,8 +298,7 @@ public final class ClipboardService implements Runnable, FlavorListener, Clipboa
         // we likely will not need more than 5 elements in the queue. if need
         // be the queue will grow.
         RequestQueue = new ArrayBlockingQueue<>(5);
-        FlavorsListPriority = new LinkedHashSet<>();
-        MapProcessors = new HashMap<>();
+        Router = new FlavorRouter(FlavorRouter.FailurePolicy.ABORT);
         Myshutdownlistener = new ShutdownListener(this);
     }
 
@@ -351,21 +340,9 @@ public final class ClipboardService implements Runnable, FlavorListener, Clipboa
             throw new IllegalStateException(
                     "Cannot add FlavorHandler while the service is running or processing data.");
         }
-        Objects.requireNonNull(handler, "FlavorProcessor cannot be null");
-        Objects.requireNonNull(flavors, "the Flavor cannot be null");
-        if (MapProcessors.containsKey(handler)) {
-            return;
-        }
-        var itemHandler = new FlavorHandler(() -> {
+        Router.addFlavorHandler(() -> {
             return !isProcessingTask();
-        }, handler, flavors);
-        MapProcessors.put(handler, itemHandler);
-        LoggingHelper.getLogger(LOGGERNAME).log(Level.INFO, "Registering FlavorProcessor");
-        if (priority) {
-            FlavorsListPriority.addFirst(itemHandler);
-        } else {
-            FlavorsListPriority.addLast(itemHandler);
-        }
+        }, handler, priority, flavors);
     }
 
     /**
@@ -417,12 +394,48 @@ public final class ClipboardService implements Runnable, FlavorListener, Clipboa
             throw new IllegalStateException(
                     "Cannot remove FlavorHandler while the service is running or processing data.");
         }
-        LoggingHelper.getLogger(LOGGERNAME).log(Level.INFO, "Removing FlavorProcessor");
-        var tmp = MapProcessors.remove(handler);
-        if (tmp != null) {
-            return FlavorsListPriority.remove(tmp);
-        }
-        return false;
+        return Router.removeFlavorHandler(handler);
+    }
+
+    /**
+     * returns the metrics collected while dispatching the clipboard content to
+     * the registered handlers.
+     *
+     * @return the routing metrics of this service.
+     */
+    public RoutingMetrics getRoutingMetrics() {
+        return Router.getMetrics();
+    }
+
+    /**
+     * sets the cost model used to negotiate which of the offered flavors is
+     * read by each handler. by default stream flavors are preferred.
+     *
+     * @param costModel the cost model. if null
+     * {@link FlavorCostModel#DEFAULT} is used.
+     */
+    public void setFlavorCostModel(FlavorCostModel costModel) {
+        Router.setCostModel(costModel);
+    }
+
+    /**
+     * enables or disables content sniffing. when enabled the first bytes of
+     * the stream flavors are sniffed and the handlers whose processor
+     * declines the content are skipped without reading it. (see
+     * {@link FlavorProcessor#acceptsContent})
+     * disabled by default.
+     *
+     * @param enabled whenever to sniff the content.
+     */
+    public void setContentSniffing(boolean enabled) {
+        Router.setContentSniffing(enabled);
+    }
+
+    /**
+     * @return true if content sniffing is enabled.
+     */
+    public boolean isContentSniffing() {
+        return Router.isContentSniffing();
     }
     //</editor-fold>
 
@@ -441,7 +454,7 @@ public final class ClipboardService implements Runnable, FlavorListener, Clipboa
         if (serviceOnline) {
             return false;
         }
-        if (FlavorsListPriority.isEmpty()) {
+        if (Router.isEmpty()) {
             return false;
         }
         // if service is set to finish but still processing or hang. we cannot restart
@@ -715,30 +728,23 @@ public final class ClipboardService implements Runnable, FlavorListener, Clipboa
         if (Objects.isNull(contents) || !processingData) {
             return null;
         }
-        DebugLog(contents);
+        if (LoggingHelper.RunningInDebugMode()) {
+            Router.DebugLogFlavors(contents.getTransferDataFlavors());
+        }
         // check if the content can be handled by our registered handlers.
-        for (FlavorHandler handler : FlavorsListPriority) {
-            try {
-                var result = handler.handleFlavor(contents);
-                if (result) {
-                    LoggingHelper.getLogger(LOGGERNAME).info("Clipboard Data Handled");
-                    break;
-                }
-            } catch (DataTransferException Cex) {
-                LoggingHelper.getLogger(LOGGERNAME)
-                        .log(Level.SEVERE, "Data Transfer Exception detected Will return", Cex);
-                return clipboard;
-            } catch (Throwable ex) {
-                //capture all other errors and log em 
-                //we do this as handlers might not have handled the error.
-                //but are NOT errors that we should care for.
-                LoggingHelper.getLogger(LOGGERNAME)
-                        .log(Level.SEVERE, "Error Has been catch at processClipboardChange", ex);
-            }
-            //should we bail?
-            if (!processingData) {
-                return null;
+        try {
+            var result = Router.route(contents, null, () -> !processingData);
+            if (result) {
+                LoggingHelper.getLogger(LOGGERNAME).info("Clipboard Data Handled");
             }
+        } catch (DataTransferException Cex) {
+            LoggingHelper.getLogger(LOGGERNAME)
+                    .log(Level.SEVERE, "Data Transfer Exception detected Will return", Cex);
+            return clipboard;
+        }
+        //should we bail?
+        if (!processingData) {
+            return null;
         }
         if (!Owner.get()) {
             if (!processingData) {
@@ -749,32 +755,6 @@ public final class ClipboardService implements Runnable, FlavorListener, Clipboa
         return null;
     }
 
-    private void DebugLog(Transferable contents) {
-        if (!LoggingHelper.RunningInDebugMode()) {
-            return;
-        }
-        HashSet<String> flavorsNames = new HashSet<>();
-        HashSet<String> flavorsMime = new HashSet<>();
-        for (DataFlavor flavor : contents.getTransferDataFlavors()) {
-            if (flavor == null) {
-                continue;
-            }
-            var added = flavorsNames.add(flavor.getHumanPresentableName());
-            var added2 = flavorsMime.add(flavor.getDefaultRepresentationClassAsString());
-            if (added) {
-                if (added2) {
-                    LoggingHelper.getLogger(LOGGERNAME+".debug").log(Level.INFO, "Flavor: {0} :: Flavor Class: {1}", new Object[]{flavor.getHumanPresentableName(), flavor.getDefaultRepresentationClassAsString()});
-                } else {
-                    LoggingHelper.getLogger(LOGGERNAME+".debug").log(Level.INFO, "Flavor: {0}", new Object[]{flavor.getHumanPresentableName()});
-                }
-            } else if (added2) {
-                LoggingHelper.getLogger(LOGGERNAME+".debug").log(Level.INFO, "Flavor Class: {0}", new Object[]{flavor.getDefaultRepresentationClassAsString()});
-            }
-        }
-        flavorsNames.clear();
-        flavorsMime.clear();
-    }
-
     /**
      * {@inheritDoc}
      *
@@ -833,6 +813,37 @@ public final class ClipboardService implements Runnable, FlavorListener, Clipboa
     public void lostOwnership(Clipboard clipboard, Transferable contents) {
         LoggingHelper.getLogger(LOGGERNAME).log(Level.INFO, "Clipboard Ownership Loss");
         Owner.set(false);
+        //the data was replaced. whatever was cached to serve it is no longer needed.
+        if (contents instanceof LazyTransferable lazy) {
+            lazy.release();
+        }
+    }
+
+    /**
+     * places the provided data on the SYSTEM Clipboard with this service as
+     * its owner. the clipboard change caused by this call is not processed by
+     * the registered handlers. the intended use is with a
+     * {@link LazyTransferable} so the data is only produced if and when
+     * another application request it. and its cache is released once the
+     * ownership is lost.
+     *
+     * @param contents the data to place on the clipboard.
+     * @return true if the data was placed on the clipboard. false if the
+     * clipboard is not available at the moment.
+     */
+    public boolean setClipboardContents(Transferable contents) {
+        Objects.requireNonNull(contents, "the contents cannot be null");
+        try {
+            //only the listener (if registered) will consume the skip.
+            SkipNext.set(serviceOnline);
+            SYSTEM_CLIPBOARD.setContents(contents, this);
+            Owner.set(true);
+            return true;
+        } catch (IllegalStateException e) {
+            SkipNext.set(false);
+            LoggingHelper.getLogger(LOGGERNAME).log(Level.WARNING, "Unable to set the Clipboard contents", e);
+        }
+        return false;
     }
 
     /**
@@ -12,7 +12,6 @@
  */
 package com.aeongames.edi.utils.datatransfer.dnd;
 
-import java.util.HashMap;
 import java.util.Objects;
 import java.awt.Component;
 import java.util.LinkedList;
@@ -30,7 +29,10 @@ import java.awt.dnd.DropTargetDropEvent;
 import java.awt.datatransfer.Transferable;
 import java.awt.dnd.InvalidDnDOperationException;
 import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.edi.utils.datatransfer.FlavorRouter;
 import com.aeongames.edi.utils.datatransfer.FlavorHandler;
+import com.aeongames.edi.utils.datatransfer.RoutingMetrics;
+import com.aeongames.edi.utils.datatransfer.FlavorCostModel;
 import com.aeongames.edi.utils.datatransfer.FlavorProcessor;
 import com.aeongames.edi.utils.datatransfer.DataTransferException;
 
@@ -58,30 +60,19 @@ public class DragAndDropHelper implements DropTargetListener {
      * intended for this {@Link DropTargetListener} to ignore Drop events
      */
     protected final LinkedHashSet<DataFlavor> FlavorsIgnore;
-    /**
-     * a list of unique values. that contains the Flavors handlers that are
-     * instances that can handle specific flavor(s) of data. from the clipboard.
-     * <br>
-     * when a change on the Clipboard is to be handled the list (in order) and
-     * check for each handler if they are fit to handle the flavor.
-     * <br>
-     * this process runs in "first come first serve". meaning. that if there are
-     * multiple handlers for the same flavor the one that has registered with
-     * hight priority(first encountered on the list) and is allocated first will
-     * process the data.
-     */
-    private final LinkedHashSet<FlavorHandler> FlavorsListPriority;
     /**
      * a list of unique values. that contains all the dndEventListener that want
      * to listen for Events related to DnD to update the UI.
      */
     private final LinkedHashSet<DragDropEventListener> dndListeners;
     /**
-     * a mapping for the {@code FlavorHandler} that wrap a
-     * {@code FlavorProcessor} this is required for ease of adding or removing
-     * handlers
+     * the routing engine that holds the Flavors handlers and dispatch the
+     * dropped data to them. in priority order.
+     * <br>
+     * a DnD does not have a busy source to retry later, thus a failing handler
+     * does not stop the dispatch and the next compatible handler is called.
      */
-    private final HashMap<FlavorProcessor, FlavorHandler> MapProcessors;
+    private final FlavorRouter Router;
 
     //</editor-fold>
     /**
@@ -95,8 +86,7 @@ public class DragAndDropHelper implements DropTargetListener {
         Targets = new LinkedList<>();
         dndListeners = new LinkedHashSet<>();
         FlavorsIgnore = new LinkedHashSet<>();
-        FlavorsListPriority = new LinkedHashSet<>();
-        MapProcessors = new HashMap<>();
+        Router = new FlavorRouter(FlavorRouter.FailurePolicy.CONTINUE);
         if (ignoreFlavors != null && ignoreFlavors.length > 0) {
             Collections.addAll(FlavorsIgnore, ignoreFlavors);
         }
@@ -119,21 +109,9 @@ public class DragAndDropHelper implements DropTargetListener {
      * will be added at the start of the List rather than appending it.
      * @throws IllegalStateException if the service is running or processing
      */
-    private synchronized void addFlavorHandler(FlavorProcessor handler, boolean priority, DataFlavor... flavors) {
-        Objects.requireNonNull(handler, "FlavorProcessor cannot be null");
-        Objects.requireNonNull(flavors, "the Flavor cannot be null");
-        if (MapProcessors.containsKey(handler)) {
-            return;
-        }
+    private void addFlavorHandler(FlavorProcessor handler, boolean priority, DataFlavor... flavors) {
         //we at this time dont Expect to do Interruptions on the handling.
-        var itemHandler = new FlavorHandler(null, handler, flavors);
-        MapProcessors.put(handler, itemHandler);
-        LoggingHelper.getLogger(LOGGERNAME).log(Level.INFO, "Registering FlavorProcessor");
-        if (priority) {
-            FlavorsListPriority.addFirst(itemHandler);
-        } else {
-            FlavorsListPriority.addLast(itemHandler);
-        }
+        Router.addFlavorHandler(null, handler, priority, flavors);
     }
 
     /**
@@ -180,13 +158,49 @@ public class DragAndDropHelper implements DropTargetListener {
      * @throws IllegalStateException if the Service is currently processing data
      * or is online.
      */
-    public synchronized boolean RemoveFlavorHandler(FlavorProcessor handler) {
-        LoggingHelper.getLogger(LOGGERNAME).log(Level.INFO, "Removing FlavorProcessor");
-        var tmp = MapProcessors.remove(handler);
-        if (tmp != null) {
-            return FlavorsListPriority.remove(tmp);
-        }
-        return false;
+    public boolean RemoveFlavorHandler(FlavorProcessor handler) {
+        return Router.removeFlavorHandler(handler);
+    }
+
+    /**
+     * returns the metrics collected while dispatching the dropped data to the
+     * registered handlers.
+     *
+     * @return the routing metrics of this instance.
+     */
+    public RoutingMetrics getRoutingMetrics() {
+        return Router.getMetrics();
+    }
+
+    /**
+     * sets the cost model used to negotiate which of the offered flavors is
+     * read by each handler. by default stream flavors are preferred.
+     *
+     * @param costModel the cost model. if null
+     * {@link FlavorCostModel#DEFAULT} is used.
+     */
+    public void setFlavorCostModel(FlavorCostModel costModel) {
+        Router.setCostModel(costModel);
+    }
+
+    /**
+     * enables or disables content sniffing. when enabled the first bytes of
+     * the stream flavors are sniffed and the handlers whose processor
+     * declines the content are skipped without reading it. (see
+     * {@link FlavorProcessor#acceptsContent})
+     * disabled by default.
+     *
+     * @param enabled whenever to sniff the content.
+     */
+    public void setContentSniffing(boolean enabled) {
+        Router.setContentSniffing(enabled);
+    }
+
+    /**
+     * @return true if content sniffing is enabled.
+     */
+    public boolean isContentSniffing() {
+        return Router.isContentSniffing();
     }
     //</editor-fold>
 
@@ -316,7 +330,7 @@ public class DragAndDropHelper implements DropTargetListener {
      * without first invoking an acceptDrop.
      * https://docs.oracle.com/javase/1.5.0/docs/guide/dragndrop/spec/dnd1.html
      * (doc doc.) and java doc also suggest this still applicable. thus. we
-     * likely will required to review FlavorsListPriority against the DTDE list
+     * likely will required to review the registered handlers against the DTDE list
      * at the least twice. here and when we are to consume the data.
      *
      * to process a DnD unlike clipboard. we need to first accept or deny the
@@ -328,48 +342,9 @@ public class DragAndDropHelper implements DropTargetListener {
      */
     private FlavorHandler isDroppable(DropTargetDropEvent dtde) {
         var flavors = dtde.getCurrentDataFlavors();
-        DebugLogFlavors(flavors);
-        FlavorHandler detected = null;
-        for (var flavorHandler : FlavorsListPriority) {
-            if (flavorHandler.canConsume(flavors)) {
-                detected = flavorHandler;
-                break;
-            }
-        }
-        return detected;
+        Router.DebugLogFlavors(flavors);
+        return Router.findHandler(flavors);
     }
-    
-    
-    private void DebugLogFlavors(DataFlavor flavors[]) {
-        if (!LoggingHelper.RunningInDebugMode()) {
-            return;
-        }
-        if(flavors.length==0){
-             LoggingHelper.getLogger(LOGGERNAME+".debug").log(Level.INFO,"Edge case: there are no Data Flavors provided.");
-        }
-        HashMap<String,LinkedHashSet<String>> flavorsNames = new HashMap<>();
-        for (DataFlavor flavor : flavors) {
-            if (flavor == null) {
-                continue;
-            }
-            var list= flavorsNames.get(flavor.getHumanPresentableName());
-            if(list==null){
-                list = new LinkedHashSet<>();
-            }
-            var added = list.add(flavor.getDefaultRepresentationClassAsString());
-            flavorsNames.put(flavor.getHumanPresentableName(), list);
-                    
-            if (added) {
-                LoggingHelper.getLogger(LOGGERNAME+".debug").log(Level.INFO, "Flavor: {0} :: Flavor Class: {1}\nMIME:{2}",
-                        new Object[]{flavor.getHumanPresentableName(),
-                            flavor.getDefaultRepresentationClassAsString(),
-                        flavor.getMimeType()
-                        });
-            }
-        }
-        flavorsNames.clear();
-    }
-
     /**
      * logs the information for this Dropping action.
      *
@@ -444,8 +419,9 @@ public class DragAndDropHelper implements DropTargetListener {
     //<editor-fold defaultstate="collapsed" desc="Process Drop Event">
     /**
      * process and handles the DnD drop event calling the prefer handler first.
-     * if it fails it tries to call the next one from the
-     * {@code FlavorsListPriority}
+     * if it fails it tries to call the next compatible handler (in priority
+     * order) the flavors of the {@code Transferable} are gathered only once
+     * and only the handlers that can consume at least one of them are called.
      *
      * @param detected the detected FlavorHandler. that we should prioritize to
      * use
@@ -454,48 +430,16 @@ public class DragAndDropHelper implements DropTargetListener {
      * exhausted all handles and the data could not be handled.
      */
     private boolean processDrop(FlavorHandler detected, Transferable contents) {
-        //first try to process using the detected if works. fine otherwise loop all flavors
-        boolean bail = runDrop(detected, contents);
-        if (bail || FlavorsListPriority.size() == 1) {
-            return bail;
-        }
-        //if there are more handles. and the first one did not handle. then lets
-        //process in the priority order minus the one we alredy handled.
-        for (FlavorHandler handler : FlavorsListPriority) {
-            if (Objects.equals(handler, detected)) {
-                continue;
-            }
-            bail = runDrop(handler, contents);
-            if (bail) {
-                break;
-            }
-        }
-        return bail;
-    }
-
-    /**
-     * Executes the Handler. while catching error. and logging if they happen.
-     *
-     * @param handler the handler to call
-     * @param contentst the content to delegate
-     * @return whenever or not the execution succeed.
-     */
-    private boolean runDrop(FlavorHandler handler, Transferable contents) {
         try {
-            var result = handler.handleFlavor(contents);
-            if (result) {
+            var handled = Router.route(contents, detected, null);
+            if (handled) {
                 LoggingHelper.getLogger(LOGGERNAME).info("Drag And Drop Data Handled");
-                return true;
             }
+            return handled;
         } catch (DataTransferException Cex) {
+            //the router is set to continue on errors. but lets be safe.
             LoggingHelper.getLogger(LOGGERNAME)
                     .log(Level.SEVERE, "Drag And Drop Exception detected Will return", Cex);
-        } catch (Throwable ex) {
-            //capture all other errors and log em 
-            //we do this as handlers might not have handled the error.
-            //but are NOT errors that we should care for.
-            LoggingHelper.getLogger(LOGGERNAME)
-                    .log(Level.SEVERE, "Error Has been catch at runDrop", ex);
         }
         return false;
     }